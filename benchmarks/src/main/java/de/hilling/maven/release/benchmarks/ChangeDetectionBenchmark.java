@@ -0,0 +1,57 @@
+package de.hilling.maven.release.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hilling.maven.release.TreeWalkingDiffDetector;
+
+/**
+ * Change detection of a single module by walking the history since the release tag.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChangeDetectionBenchmark extends SyntheticRepositoryBenchmark {
+
+    private Git                     git;
+    private TreeWalkingDiffDetector detector;
+    private Ref                     tag;
+
+    @Override
+    protected void open() throws Exception {
+        git = Git.open(repository.getDirectory());
+        detector = new TreeWalkingDiffDetector(git.getRepository(), new QuietLog());
+        tag = git.getRepository().exactRef(Constants.R_TAGS + SyntheticRepository.TAG_NAME);
+    }
+
+    @Override
+    protected void close() {
+        git.close();
+    }
+
+    /**
+     * Worst case, the whole history since the tag has to be walked.
+     */
+    @Benchmark
+    public boolean hasChangedSinceUnchangedModule() throws Exception {
+        return detector.hasChangedSince(repository.getUnchangedModulePath(), Collections.emptyList(), tag);
+    }
+
+    @Benchmark
+    public boolean hasChangedSinceChangedModule() throws Exception {
+        return detector.hasChangedSince(repository.getChangedModulePath(), Collections.emptyList(), tag);
+    }
+}
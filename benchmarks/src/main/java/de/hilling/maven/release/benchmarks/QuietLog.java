@@ -0,0 +1,90 @@
+package de.hilling.maven.release.benchmarks;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Maven plugin log that drops debug and info messages, so logging does not dominate the measurements.
+ */
+final class QuietLog implements Log {
+
+    @Override
+    public boolean isDebugEnabled() {
+        return false;
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+    }
+
+    @Override
+    public void debug(Throwable error) {
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return false;
+    }
+
+    @Override
+    public void info(CharSequence content) {
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+    }
+
+    @Override
+    public void info(Throwable error) {
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return true;
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+        warn(content, null);
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+        print("[WARNING] ", content, error);
+    }
+
+    @Override
+    public void warn(Throwable error) {
+        warn(error.getMessage(), error);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return true;
+    }
+
+    @Override
+    public void error(CharSequence content) {
+        error(content, null);
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+        print("[ERROR] ", content, error);
+    }
+
+    @Override
+    public void error(Throwable error) {
+        error(error.getMessage(), error);
+    }
+
+    private static void print(String prefix, CharSequence content, Throwable error) {
+        System.err.println(prefix + content);
+        if (error != null) {
+            error.printStackTrace(System.err);
+        }
+    }
+}
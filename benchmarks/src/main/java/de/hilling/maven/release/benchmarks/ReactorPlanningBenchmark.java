@@ -0,0 +1,72 @@
+package de.hilling.maven.release.benchmarks;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hilling.maven.release.ChangeDetection;
+import de.hilling.maven.release.NoChangesAction;
+import de.hilling.maven.release.Reactor;
+import de.hilling.maven.release.metrics.ReleaseMetrics;
+import de.hilling.maven.release.releaseinfo.ReleaseInfoStorage;
+import de.hilling.maven.release.repository.LocalGitRepo;
+import de.hilling.maven.release.versioning.ReleaseInfo;
+
+/**
+ * Planning of a whole release as done by the {@code next} and {@code prepare} goals, in offline mode so no remote is
+ * needed. The persistent change detection cache is removed before each invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReactorPlanningBenchmark extends SyntheticRepositoryBenchmark {
+
+    @Param({"History", "Tree"})
+    public ChangeDetection changeDetection;
+
+    @Param("1")
+    public int changeDetectionThreads;
+
+    private final QuietLog log = new QuietLog();
+
+    private LocalGitRepo gitRepo;
+    private ReleaseInfo  previousRelease;
+
+    @Override
+    protected void open() throws Exception {
+        gitRepo = LocalGitRepo.fromDirectory(repository.getDirectory(), null, log);
+        gitRepo.setOffline(true);
+        previousRelease = new ReleaseInfoStorage(repository.getDirectory(), gitRepo.git).load();
+    }
+
+    @Override
+    protected void close() {
+        gitRepo.git.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearChangeDetectionCache() throws Exception {
+        FileUtils.deleteDirectory(new File(gitRepo.git.getRepository().getDirectory(), "smart-release"));
+    }
+
+    @Benchmark
+    public Reactor fromProjects() throws Exception {
+        return Reactor.fromProjects(log, gitRepo, repository.getRootProject(), repository.getProjects(),
+                                    Collections.emptyList(), NoChangesAction.ReleaseNone, false, changeDetection,
+                                    changeDetectionThreads, previousRelease, ReleaseMetrics.disabled());
+    }
+}
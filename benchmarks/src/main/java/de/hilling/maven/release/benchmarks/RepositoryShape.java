@@ -0,0 +1,64 @@
+package de.hilling.maven.release.benchmarks;
+
+/**
+ * Shape of a generated repository.
+ */
+public final class RepositoryShape {
+
+    private final int     modules;
+    private final int     depth;
+    private final int     commitsSinceTag;
+    private final int     filesPerCommit;
+    private final boolean packed;
+
+    /**
+     * @param modules         number of modules below the root aggregator.
+     * @param depth           number of directories between the root and a module directory, at least 1.
+     * @param commitsSinceTag number of commits on top of the release tag.
+     * @param filesPerCommit  number of files changed by each of these commits.
+     * @param packed          true to pack all objects, false to leave them loose.
+     */
+    public RepositoryShape(int modules, int depth, int commitsSinceTag, int filesPerCommit, boolean packed) {
+        if (modules < 1 || depth < 1 || commitsSinceTag < 0 || filesPerCommit < 1) {
+            throw new IllegalArgumentException("invalid repository shape " + describe(modules, depth, commitsSinceTag,
+                                                                                       filesPerCommit, packed));
+        }
+        this.modules = modules;
+        this.depth = depth;
+        this.commitsSinceTag = commitsSinceTag;
+        this.filesPerCommit = filesPerCommit;
+        this.packed = packed;
+    }
+
+    public int getModules() {
+        return modules;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getCommitsSinceTag() {
+        return commitsSinceTag;
+    }
+
+    public int getFilesPerCommit() {
+        return filesPerCommit;
+    }
+
+    public boolean isPacked() {
+        return packed;
+    }
+
+    @Override
+    public String toString() {
+        return describe(modules, depth, commitsSinceTag, filesPerCommit, packed);
+    }
+
+    private static String describe(int modules, int depth, int commitsSinceTag, int filesPerCommit, boolean packed) {
+        return modules + " modules, depth " + depth + ", " + commitsSinceTag + " commits since tag, " + filesPerCommit
+               + " files per commit, " + (packed
+                                          ? "packed"
+                                          : "loose");
+    }
+}
@@ -0,0 +1,395 @@
+package de.hilling.maven.release.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import de.hilling.maven.release.AnnotatedTag;
+import de.hilling.maven.release.releaseinfo.ReleaseInfoStorage;
+import de.hilling.maven.release.versioning.ImmutableFixVersion;
+import de.hilling.maven.release.versioning.ImmutableModuleVersion;
+import de.hilling.maven.release.versioning.ImmutableQualifiedArtifact;
+import de.hilling.maven.release.versioning.ImmutableReleaseInfo;
+import de.hilling.maven.release.versioning.ReleaseDateSingleton;
+
+/**
+ * Generates a git repository with a multi module project that has been released once, followed by a configurable
+ * number of commits.
+ * <p>
+ * Module {@code i} depends on module {@code (i - 1) / 2}, so the dependencies form a binary tree. The commits after the
+ * release only touch the last tenth of the modules, the leaves of that tree, so most modules are unchanged and have to
+ * be checked against the whole history. Generation is deterministic for a given shape.
+ * </p>
+ */
+public final class SyntheticRepository {
+
+    public static final String GROUP_ID         = "de.hilling.maven.release.benchmarks.synthetic";
+    public static final String ROOT_ARTIFACT_ID = "synthetic-aggregator";
+    public static final String TAG_NAME         = ReleaseDateSingleton.TAG_PREFIX + "synthetic";
+
+    private static final String SHAPE_MARKER     = "synthetic-shape";
+    private static final String SNAPSHOT_VERSION = "1-SNAPSHOT";
+    private static final int    GROUP_FAN_OUT    = 4;
+    private static final long   START_SECONDS    = 1500000000L;
+
+    private final File               directory;
+    private final RepositoryShape    shape;
+    private final List<String>       modulePaths;
+    private final List<MavenProject> projects;
+
+    private SyntheticRepository(File directory, RepositoryShape shape) {
+        this.directory = directory;
+        this.shape = shape;
+        this.modulePaths = new ArrayList<>();
+        for (int i = 0; i < shape.getModules(); i++) {
+            modulePaths.add(modulePath(i, shape.getDepth()));
+        }
+        this.projects = createProjects();
+    }
+
+    /**
+     * Generate a repository.
+     *
+     * @param directory empty or not yet existing directory to create the repository in.
+     * @param shape     shape of the repository.
+     * @return the generated repository.
+     * @throws IOException     if the files cannot be written.
+     * @throws GitAPIException on git errors.
+     */
+    public static SyntheticRepository create(File directory, RepositoryShape shape) throws IOException,
+                                                                                          GitAPIException {
+        final SyntheticRepository repository = new SyntheticRepository(directory, shape);
+        repository.generate();
+        return repository;
+    }
+
+    /**
+     * Reuse a repository generated earlier with the same shape or generate it, so forks and runs share repositories.
+     *
+     * @param directory directory of the repository, deleted if it contains anything else.
+     * @param shape     shape of the repository.
+     * @return the repository.
+     * @throws IOException     if the files cannot be written.
+     * @throws GitAPIException on git errors.
+     */
+    public static SyntheticRepository createOrReuse(File directory, RepositoryShape shape) throws IOException,
+                                                                                                 GitAPIException {
+        final File marker = new File(directory, Constants.DOT_GIT + "/" + SHAPE_MARKER);
+        if (marker.isFile() && shape.toString().equals(FileUtils.readFileToString(marker, StandardCharsets.UTF_8))) {
+            return new SyntheticRepository(directory, shape);
+        }
+        FileUtils.deleteDirectory(directory);
+        final SyntheticRepository repository = create(directory, shape);
+        FileUtils.writeStringToFile(marker, shape.toString(), StandardCharsets.UTF_8);
+        return repository;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public RepositoryShape getShape() {
+        return shape;
+    }
+
+    /**
+     * @return paths of the modules relative to the root, in the order of their indices.
+     */
+    public List<String> getModulePaths() {
+        return Collections.unmodifiableList(modulePaths);
+    }
+
+    /**
+     * @return path of a module that is not changed after the release.
+     */
+    public String getUnchangedModulePath() {
+        return modulePaths.get(0);
+    }
+
+    /**
+     * @return path of a module that is changed after the release.
+     */
+    public String getChangedModulePath() {
+        return modulePaths.get(modulePaths.size() - 1);
+    }
+
+    /**
+     * @return the root aggregator.
+     */
+    public MavenProject getRootProject() {
+        return projects.get(0);
+    }
+
+    /**
+     * @return the root aggregator and all modules in build order, as maven would resolve them.
+     */
+    public List<MavenProject> getProjects() {
+        return Collections.unmodifiableList(projects);
+    }
+
+    private void generate() throws IOException, GitAPIException {
+        FileUtils.forceMkdir(directory);
+        writePoms();
+        try (Git git = Git.init().setDirectory(directory).call()) {
+            git.add().addFilepattern(".").call();
+            final ObjectId releaseCommit = git.commit().setMessage("initial import").call();
+            final ImmutableReleaseInfo releaseInfo = releaseInfo(releaseCommit);
+            final ObjectId releaseInfoBlob = new ReleaseInfoStorage(directory, git).store(releaseInfo);
+            new AnnotatedTag(TAG_NAME, releaseInfo, releaseInfoBlob).saveAtHEAD(git);
+            commitChanges(git.getRepository());
+            git.reset().setMode(ResetCommand.ResetType.HARD).call();
+            if (shape.isPacked()) {
+                git.gc().call();
+            }
+        }
+    }
+
+    private void writePoms() throws IOException {
+        final StringBuilder modules = new StringBuilder();
+        for (String path : modulePaths) {
+            modules.append("        <module>").append(path).append("</module>\n");
+        }
+        write("pom.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                         + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+                         + "    <modelVersion>4.0.0</modelVersion>\n"
+                         + "    <groupId>" + GROUP_ID + "</groupId>\n"
+                         + "    <artifactId>" + ROOT_ARTIFACT_ID + "</artifactId>\n"
+                         + "    <version>" + SNAPSHOT_VERSION + "</version>\n"
+                         + "    <packaging>pom</packaging>\n"
+                         + "    <modules>\n" + modules + "    </modules>\n"
+                         + "</project>\n");
+        for (int i = 0; i < modulePaths.size(); i++) {
+            final String path = modulePaths.get(i);
+            final String dependency = i == 0
+                                      ? ""
+                                      : "    <dependencies>\n"
+                                        + "        <dependency>\n"
+                                        + "            <groupId>" + GROUP_ID + "</groupId>\n"
+                                        + "            <artifactId>" + artifactId(dependencyOf(i)) + "</artifactId>\n"
+                                        + "            <version>" + SNAPSHOT_VERSION + "</version>\n"
+                                        + "        </dependency>\n"
+                                        + "    </dependencies>\n";
+            write(path + "/pom.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                                     + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+                                     + "    <modelVersion>4.0.0</modelVersion>\n"
+                                     + "    <parent>\n"
+                                     + "        <groupId>" + GROUP_ID + "</groupId>\n"
+                                     + "        <artifactId>" + ROOT_ARTIFACT_ID + "</artifactId>\n"
+                                     + "        <version>" + SNAPSHOT_VERSION + "</version>\n"
+                                     + "        <relativePath>" + relativePathToRoot(path) + "</relativePath>\n"
+                                     + "    </parent>\n"
+                                     + "    <artifactId>" + artifactId(i) + "</artifactId>\n"
+                                     + dependency
+                                     + "</project>\n");
+            write(path + "/" + dataFile(0), "initial content of " + artifactId(i) + "\n");
+        }
+    }
+
+    private ImmutableReleaseInfo releaseInfo(ObjectId releaseCommit) {
+        final ZonedDateTime releaseDate = ZonedDateTime.now();
+        final ImmutableReleaseInfo.Builder builder = ImmutableReleaseInfo.builder().tagName(TAG_NAME);
+        for (MavenProject project : projects) {
+            final ImmutableQualifiedArtifact artifact = ImmutableQualifiedArtifact.builder()
+                                                                                  .groupId(project.getGroupId())
+                                                                                  .artifactId(project.getArtifactId())
+                                                                                  .build();
+            builder.addModules(ImmutableModuleVersion.builder().releaseDate(releaseDate).releaseTag(TAG_NAME)
+                                                     .artifact(artifact)
+                                                     .version(ImmutableFixVersion.builder().majorVersion(1)
+                                                                                 .minorVersion(0).build())
+                                                     .releaseCommit(releaseCommit.name()).build());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Create the commits after the release directly in the object database, without touching the working tree. Only
+     * the trees of the changed directories are written for each commit.
+     */
+    private void commitChanges(Repository repository) throws IOException {
+        final Ref head = repository.exactRef(Constants.HEAD);
+        ObjectId parent = head.getObjectId();
+        final Directory root = new Directory();
+        try (ObjectReader reader = repository.newObjectReader(); RevWalk walk = new RevWalk(reader);
+             TreeWalk treeWalk = new TreeWalk(reader); ObjectInserter inserter = repository.newObjectInserter()) {
+            treeWalk.addTree(walk.parseCommit(parent).getTree());
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                root.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
+            }
+            final Random random = new Random(shape.toString().hashCode());
+            final int changedModules = Math.max(1, modulePaths.size() / 10);
+            for (int commit = 0; commit < shape.getCommitsSinceTag(); commit++) {
+                for (int file = 0; file < shape.getFilesPerCommit(); file++) {
+                    final int module = modulePaths.size() - 1 - random.nextInt(changedModules);
+                    final String path = modulePaths.get(module) + "/" + dataFile(file);
+                    root.put(path, inserter.insert(Constants.OBJ_BLOB, ("change " + commit + " of " + path + "\n")
+                                                                          .getBytes(StandardCharsets.UTF_8)));
+                }
+                final PersonIdent ident = new PersonIdent("Benchmark", "benchmark@example.com",
+                                                          (START_SECONDS + commit) * 1000, 0);
+                final CommitBuilder commitBuilder = new CommitBuilder();
+                commitBuilder.setTreeId(root.write(inserter));
+                commitBuilder.setParentId(parent);
+                commitBuilder.setAuthor(ident);
+                commitBuilder.setCommitter(ident);
+                commitBuilder.setMessage("synthetic change " + commit);
+                parent = inserter.insert(commitBuilder);
+            }
+            inserter.flush();
+        }
+        final RefUpdate update = repository.updateRef(Constants.HEAD);
+        update.setNewObjectId(parent);
+        final RefUpdate.Result result = update.forceUpdate();
+        if (result != RefUpdate.Result.FORCED && result != RefUpdate.Result.NEW
+            && result != RefUpdate.Result.NO_CHANGE && result != RefUpdate.Result.FAST_FORWARD) {
+            throw new IOException("unable to update HEAD: " + result);
+        }
+    }
+
+    private List<MavenProject> createProjects() {
+        final List<MavenProject> result = new ArrayList<>();
+        final Model rootModel = new Model();
+        rootModel.setModelVersion("4.0.0");
+        rootModel.setGroupId(GROUP_ID);
+        rootModel.setArtifactId(ROOT_ARTIFACT_ID);
+        rootModel.setVersion(SNAPSHOT_VERSION);
+        rootModel.setPackaging("pom");
+        rootModel.setModules(new ArrayList<>(modulePaths));
+        final MavenProject root = project(rootModel, directory);
+        result.add(root);
+        for (int i = 0; i < modulePaths.size(); i++) {
+            final Parent parent = new Parent();
+            parent.setGroupId(GROUP_ID);
+            parent.setArtifactId(ROOT_ARTIFACT_ID);
+            parent.setVersion(SNAPSHOT_VERSION);
+            parent.setRelativePath(relativePathToRoot(modulePaths.get(i)));
+            final Model model = new Model();
+            model.setModelVersion("4.0.0");
+            model.setParent(parent);
+            model.setGroupId(GROUP_ID);
+            model.setArtifactId(artifactId(i));
+            model.setVersion(SNAPSHOT_VERSION);
+            if (i > 0) {
+                final Dependency dependency = new Dependency();
+                dependency.setGroupId(GROUP_ID);
+                dependency.setArtifactId(artifactId(dependencyOf(i)));
+                dependency.setVersion(SNAPSHOT_VERSION);
+                model.addDependency(dependency);
+            }
+            final MavenProject project = project(model, new File(directory, modulePaths.get(i)));
+            project.setParent(root);
+            result.add(project);
+        }
+        return result;
+    }
+
+    private static MavenProject project(Model model, File basedir) {
+        final MavenProject project = new MavenProject(model);
+        project.setOriginalModel(model.clone());
+        project.setFile(new File(basedir, "pom.xml"));
+        return project;
+    }
+
+    private void write(String path, String content) throws IOException {
+        FileUtils.writeStringToFile(new File(directory, path), content, StandardCharsets.UTF_8);
+    }
+
+    private static String modulePath(int module, int depth) {
+        final StringBuilder path = new StringBuilder();
+        int group = module;
+        for (int level = 1; level < depth; level++) {
+            path.append("group-").append(group % GROUP_FAN_OUT).append('/');
+            group /= GROUP_FAN_OUT;
+        }
+        return path.append(artifactId(module)).toString();
+    }
+
+    private static String relativePathToRoot(String modulePath) {
+        final StringBuilder path = new StringBuilder();
+        for (String ignored : modulePath.split("/")) {
+            path.append("../");
+        }
+        return path.append("pom.xml").toString();
+    }
+
+    private static int dependencyOf(int module) {
+        return (module - 1) / 2;
+    }
+
+    private static String artifactId(int module) {
+        return "module-" + module;
+    }
+
+    private static String dataFile(int file) {
+        return "src/main/resources/data-" + file + ".txt";
+    }
+
+    /**
+     * In memory git tree that remembers the ids of unchanged subtrees.
+     */
+    private static final class Directory {
+        /**
+         * Keys of subdirectories end with a slash, so the natural order is the order of entries in a git tree.
+         */
+        private final TreeMap<String, Object> entries = new TreeMap<>();
+        private       ObjectId                id;
+
+        void put(String path, ObjectId blob) {
+            id = null;
+            final int separator = path.indexOf('/');
+            if (separator < 0) {
+                entries.put(path, blob);
+            } else {
+                ((Directory) entries.computeIfAbsent(path.substring(0, separator + 1), key -> new Directory()))
+                    .put(path.substring(separator + 1), blob);
+            }
+        }
+
+        ObjectId write(ObjectInserter inserter) throws IOException {
+            if (id == null) {
+                final TreeFormatter formatter = new TreeFormatter();
+                for (Map.Entry<String, Object> entry : entries.entrySet()) {
+                    final String name = entry.getKey();
+                    if (entry.getValue() instanceof Directory) {
+                        formatter.append(name.substring(0, name.length() - 1), FileMode.TREE,
+                                         ((Directory) entry.getValue()).write(inserter));
+                    } else {
+                        formatter.append(name, FileMode.REGULAR_FILE, (ObjectId) entry.getValue());
+                    }
+                }
+                id = inserter.insert(formatter);
+            }
+            return id;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package de.hilling.maven.release.benchmarks;
+
+import java.io.File;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Base of the benchmarks running against a generated repository.
+ * <p>
+ * Repositories are generated below the directory given by the system property {@value #REPOSITORIES_PROPERTY},
+ * {@code target/synthetic-repositories} by default, and reused by later forks and runs with the same shape.
+ * </p>
+ */
+@State(Scope.Benchmark)
+public abstract class SyntheticRepositoryBenchmark {
+
+    public static final String REPOSITORIES_PROPERTY = "synthetic.repositories";
+
+    @Param({"10", "100", "1000"})
+    public int modules;
+
+    @Param({"1000", "10000", "100000"})
+    public int commitsSinceTag;
+
+    @Param("3")
+    public int depth;
+
+    @Param("3")
+    public int filesPerCommit;
+
+    @Param("true")
+    public boolean packed;
+
+    protected SyntheticRepository repository;
+
+    @Setup(Level.Trial)
+    public void createRepository() throws Exception {
+        final RepositoryShape shape = new RepositoryShape(modules, depth, commitsSinceTag, filesPerCommit, packed);
+        final File parent = new File(System.getProperty(REPOSITORIES_PROPERTY, "target/synthetic-repositories"));
+        final String name = modules + "-modules-" + depth + "-deep-" + commitsSinceTag + "-commits-" + filesPerCommit
+                            + "-files-" + (packed
+                                           ? "packed"
+                                           : "loose");
+        repository = SyntheticRepository.createOrReuse(new File(parent, name), shape);
+        open();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeRepository() throws Exception {
+        close();
+    }
+
+    /**
+     * Open the resources needed by the benchmark, the repository has been generated.
+     *
+     * @throws Exception on errors.
+     */
+    protected abstract void open() throws Exception;
+
+    /**
+     * Release the resources opened by {@link #open()}.
+     *
+     * @throws Exception on errors.
+     */
+    protected abstract void close() throws Exception;
+}
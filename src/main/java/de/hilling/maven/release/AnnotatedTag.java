@@ -1,36 +1,139 @@
 package de.hilling.maven.release;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevTag;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 
 import de.hilling.maven.release.utils.Guard;
 import de.hilling.maven.release.versioning.GsonFactory;
+import de.hilling.maven.release.versioning.ImmutableModuleVersion;
+import de.hilling.maven.release.versioning.ImmutableReleaseInfo;
 import de.hilling.maven.release.versioning.ReleaseInfo;
 
+/**
+ * Release tag. The message of the tag is either the complete release info as json, or a compact payload with only
+ * the modules released with the tag and the id of the blob holding the complete release info.
+ */
 public class AnnotatedTag {
+    /**
+     * Field of the compact payload with the id of the release info blob.
+     */
+    public static final String RELEASE_INFO_BLOB = "releaseInfoBlob";
+
     private static final GsonFactory GSON_FACTORY = new GsonFactory();
 
     private final String name;
     private final ReleaseInfo releaseInfo;
+    private final Optional<ObjectId> releaseInfoBlob;
 
+    /**
+     * Tag with the complete release info in its message.
+     */
     public AnnotatedTag(String name, ReleaseInfo releaseInfo) {
         Guard.notBlank("tag name", name);
         Guard.notNull("tag message", releaseInfo);
         this.name = name;
         this.releaseInfo = releaseInfo;
+        this.releaseInfoBlob = Optional.empty();
+    }
+
+    /**
+     * Tag with the compact payload in its message.
+     *
+     * @param releaseInfoBlob id of the blob of the release info, as committed by
+     *                        {@link de.hilling.maven.release.releaseinfo.ReleaseInfoStorage#store}.
+     */
+    public AnnotatedTag(String name, ReleaseInfo releaseInfo, ObjectId releaseInfoBlob) {
+        Guard.notBlank("tag name", name);
+        Guard.notNull("tag message", releaseInfo);
+        Guard.notNull("release info blob", releaseInfoBlob);
+        this.name = name;
+        this.releaseInfo = releaseInfo;
+        this.releaseInfoBlob = Optional.of(releaseInfoBlob);
+    }
+
+    /**
+     * Read a tag, following the pointer of a compact payload to the complete release info.
+     *
+     * @param repository repository containing the tag.
+     * @param gitTag     reference to the tag.
+     *
+     * @return the tag with the complete release info.
+     *
+     * @throws IOException if the tag or the release info blob cannot be read.
+     * @throws com.google.gson.JsonSyntaxException if the message of the tag is not a release info.
+     */
+    public static AnnotatedTag fromRef(Repository repository, Ref gitTag) throws IOException {
+        Guard.notNull("gitTag", gitTag);
+        final String message;
+        try (RevWalk walk = new RevWalk(repository)) {
+            final RevTag tag = walk.parseTag(gitTag.getObjectId());
+            message = tag.getFullMessage();
+        }
+        final Gson gson = GSON_FACTORY.createGson();
+        final ImmutableReleaseInfo tagged = gson.fromJson(message, ImmutableReleaseInfo.class);
+        final String tagName = Repository.shortenRefName(gitTag.getName());
+        final BlobPointer pointer = gson.fromJson(message, BlobPointer.class);
+        if (pointer.releaseInfoBlob == null) {
+            return new AnnotatedTag(tagName, tagged);
+        }
+        final ObjectId blobId = ObjectId.fromString(pointer.releaseInfoBlob);
+        final String json = new String(repository.open(blobId, Constants.OBJ_BLOB).getBytes(), StandardCharsets.UTF_8);
+        return new AnnotatedTag(tagName, gson.fromJson(json, ImmutableReleaseInfo.class), blobId);
     }
 
     public Ref saveAtHEAD(Git git) throws GitAPIException {
-        final String message = GSON_FACTORY.createGson().toJson(releaseInfo);
-        return git.tag().setName(name).setAnnotated(true).setMessage(message).call();
+        return git.tag().setName(name).setAnnotated(true).setMessage(message()).call();
+    }
+
+    private String message() {
+        if (!releaseInfoBlob.isPresent()) {
+            return GSON_FACTORY.createGson().toJson(releaseInfo);
+        }
+        final Gson gson = GSON_FACTORY.createCompactGson();
+        final List<ImmutableModuleVersion> released = releaseInfo.getModules().stream()
+                                                                 .filter(module -> name.equals(module.getReleaseTag()))
+                                                                 .collect(Collectors.toList());
+        final JsonObject payload = gson.toJsonTree(ImmutableReleaseInfo.builder().tagName(releaseInfo.getTagName())
+                                                                        .addAllModules(released).build())
+                                       .getAsJsonObject();
+        payload.addProperty(RELEASE_INFO_BLOB, releaseInfoBlob.get().name());
+        return gson.toJson(payload);
     }
 
     public ReleaseInfo getReleaseInfo() {
         return releaseInfo;
     }
 
+    /**
+     * @return id of the blob holding the complete release info, empty if the tag message contains it.
+     */
+    public Optional<ObjectId> getReleaseInfoBlob() {
+        return releaseInfoBlob;
+    }
+
     public String name() {
         return name;
     }
+
+    /**
+     * Reads only the {@link #RELEASE_INFO_BLOB} field of a tag message.
+     */
+    private static final class BlobPointer {
+        private String releaseInfoBlob;
+    }
 }
@@ -1,27 +1,30 @@
 package de.hilling.maven.release;
 
 import static de.hilling.maven.release.utils.GitHelper.getRemoteUrlOrNullIfNoneSet;
-import static de.hilling.maven.release.repository.LocalGitRepo.fromCurrentDir;
-import static java.lang.String.format;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 import org.apache.maven.model.Scm;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
-import org.apache.maven.settings.Server;
 import org.apache.maven.settings.Settings;
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.transport.JschConfigSessionFactory;
 
 import de.hilling.maven.release.exceptions.ValidationException;
+import de.hilling.maven.release.metrics.ReleaseMetrics;
+import de.hilling.maven.release.releaseinfo.ReleasePlanStorage;
 import de.hilling.maven.release.repository.LocalGitRepo;
+import de.hilling.maven.release.utils.Constants;
 import de.hilling.maven.release.utils.ErrorUtils;
 import de.hilling.maven.release.utils.JacocoLoader;
 import de.hilling.maven.release.utils.SshAgentSessionFactory;
+import de.hilling.maven.release.versioning.ReleaseInfo;
 
 /**
  * Base class for {@link NextMojo} and {@link ReleaseMojo}.
@@ -46,14 +49,63 @@ public abstract class BaseMojo extends AbstractMojo {
      * Determines the action to take when no module changes are detected. Possible values:
      * {@code ReleaseAll}, {@code ReleaseNone}, {@code FailBuild}
      */
-    @Parameter(alias = "noChangesAction", defaultValue = "ReleaseAll", property = "noChangesAction")
+    @Parameter(alias = "noChangesAction", defaultValue = Constants.DEFAULT_NO_CHANGES_ACTION,
+               property = "noChangesAction")
     protected NoChangesAction noChangesAction;
     /**
      * Perform a bugfix release. When performing a bugfix release, the last ("bugfix") number of the release
      * version is incremented. The previous releases are determined from the .release-info.json-File.
      */
-    @Parameter(defaultValue = "false", alias = "bugfixRelease", property = "bugfixRelease")
+    @Parameter(defaultValue = Constants.DEFAULT_BUGFIX_RELEASE, alias = "bugfixRelease", property = "bugfixRelease")
     protected boolean         bugfixRelease;
+    /**
+     * Determines how changes of a module since its last release are detected. Possible values:
+     * {@code History} walks all commits since the release and also detects changes that have been reverted later on,
+     * {@code Tree} only compares the trees of the release and the current HEAD which is much faster for long
+     * histories.
+     */
+    @Parameter(alias = "changeDetection", defaultValue = Constants.DEFAULT_CHANGE_DETECTION,
+               property = "changeDetection")
+    protected ChangeDetection changeDetection;
+    /**
+     * Maximum number of threads used to detect changes of the modules. Defaults to the number of available processors.
+     */
+    @Parameter(alias = "changeDetectionThreads", defaultValue = Constants.DEFAULT_CHANGE_DETECTION_THREADS,
+               property = "changeDetectionThreads")
+    protected int             changeDetectionThreads;
+    /**
+     * Number of seconds the tags listed from the remote repository are kept in {@code .git/smart-release} and reused
+     * by later runs. Tags not found in the snapshot are always looked up at the remote. Set to 0 to disable the
+     * snapshot.
+     */
+    @Parameter(alias = "remoteTagsTtl", defaultValue = Constants.DEFAULT_REMOTE_TAGS_TTL, property = "remoteTagsTtl")
+    protected int             remoteTagsTtl;
+    /**
+     * Look up the tags of previous releases in the local repository first. The remote repository is only asked for
+     * tags that do not exist locally.
+     */
+    @Parameter(alias = "localTagsFirst", defaultValue = Constants.DEFAULT_LOCAL_TAGS_FIRST, property = "localTagsFirst")
+    protected boolean         localTagsFirst;
+    /**
+     * Never contact the remote repository to find previous releases. The commit recorded for a module in
+     * {@code .release-info.json} is used instead of its release tag, for older entries without commit the local tag is
+     * used. Defaults to the offline setting of maven.
+     */
+    @Parameter(alias = "offline", defaultValue = "${settings.offline}", property = "offline")
+    protected boolean         offline;
+    /**
+     * Store the modules and versions computed by {@code next} in {@code .git/smart-release} and reuse them in
+     * {@code prepare}, as long as neither HEAD nor the poms, the release info or the parameters have changed.
+     */
+    @Parameter(alias = "reuseReleasePlan", defaultValue = "true", property = "reuseReleasePlan")
+    protected boolean         reuseReleasePlan;
+    /**
+     * If set, timings of the phases of the goal and of the change detection of each module are written to this
+     * directory at the end of the run, as {@code smart-release-<goal>.json} and as {@code smart-release-<goal>.prom}
+     * for the textfile collector of the prometheus node exporter.
+     */
+    @Parameter(alias = "metricsDirectory", property = "metricsDirectory")
+    protected File            metricsDirectory;
     /**
      * Disable use of the ssh agent.
      */
@@ -61,6 +113,8 @@ public abstract class BaseMojo extends AbstractMojo {
     private   boolean         disableSshAgent;
     @Parameter(defaultValue = "${settings}", readonly = true, required = true)
     private   Settings        settings;
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    private   MojoExecution   mojoExecution;
     /**
      * If set, the identityFile and passphrase will be read from the Maven
      * settings file.
@@ -87,18 +141,48 @@ public abstract class BaseMojo extends AbstractMojo {
     @Parameter(property = "passphrase")
     private String passphrase;
 
+    /**
+     * Timings of the current run, see {@link #metricsDirectory}.
+     */
+    protected ReleaseMetrics metrics = ReleaseMetrics.disabled();
+
     @Override
+    @SuppressWarnings("try")
     public final void execute() throws MojoExecutionException, MojoFailureException {
-        try {
+        if (metricsDirectory != null) {
+            metrics = new ReleaseMetrics(mojoExecution != null
+                                         ? mojoExecution.getGoal()
+                                         : getClass().getSimpleName());
+        }
+        try (ReleaseMetrics.Phase ignored = metrics.phase("total")) {
             configureJsch();
             final Scm originalScm = project.getOriginalModel().getScm();
             final Scm scm = project.getModel().getScm();
-            final LocalGitRepo repo = fromCurrentDir(getRemoteUrlOrNullIfNoneSet(originalScm, scm), getLog());
+            final LocalGitRepo repo = LocalGitRepo.fromDirectory(project.getBasedir(),
+                                                                 getRemoteUrlOrNullIfNoneSet(originalScm, scm),
+                                                                 getLog());
+            repo.setRemoteTagsTtl(remoteTagsTtl);
+            repo.setLocalTagsFirst(localTagsFirst);
+            repo.setOffline(offline);
+            repo.setMetrics(metrics);
             executeConcreteMojo(scm, originalScm, repo);
         } catch (ValidationException e) {
             ErrorUtils.printBigErrorMessageAndThrow(getLog(), e.getMessage(), e.getMessages());
         } catch (GitAPIException gae) {
             ErrorUtils.printBigGitErrorExceptionAndThrow(getLog(), gae);
+        } finally {
+            writeMetrics();
+        }
+    }
+
+    private void writeMetrics() {
+        if (metricsDirectory == null) {
+            return;
+        }
+        try {
+            metrics.writeTo(metricsDirectory);
+        } catch (IOException e) {
+            getLog().warn("unable to write metrics to " + metricsDirectory + ": " + e.getMessage());
         }
     }
 
@@ -108,6 +192,46 @@ public abstract class BaseMojo extends AbstractMojo {
                                                                                              GitAPIException,
                                                                                              ValidationException;
 
+    /**
+     * @param name name of a file written by the plugin.
+     * @return the file in the root directory of the project, independent of the working directory of the JVM.
+     */
+    protected File rootFile(String name) {
+        return new File(project.getBasedir(), name);
+    }
+
+    /**
+     * @param repo repository of the project.
+     * @return storage for the release plan of the repository.
+     */
+    protected ReleasePlanStorage releasePlanStorage(LocalGitRepo repo) {
+        return new ReleasePlanStorage(repo.git.getRepository().getDirectory(), getLog());
+    }
+
+    /**
+     * @param previousRelease info of the previous release.
+     * @return fingerprint of the inputs of a release plan for this reactor and configuration.
+     * @throws MojoExecutionException if the poms cannot be read.
+     */
+    protected String releasePlanInputs(ReleaseInfo previousRelease) throws MojoExecutionException {
+        return ReleasePlanInputs.fingerprint(project, projects, modulesToForceRelease, noChangesAction, bugfixRelease,
+                                             changeDetection, offline, localTagsFirst, remoteTagsTtl,
+                                             previousRelease);
+    }
+
+    /**
+     * @param repo repository of the project.
+     * @return id of HEAD.
+     * @throws MojoExecutionException if HEAD cannot be resolved.
+     */
+    protected static String headCommit(LocalGitRepo repo) throws MojoExecutionException {
+        try {
+            return repo.git.getRepository().resolve("HEAD").name();
+        } catch (IOException e) {
+            throw new MojoExecutionException("unable to resolve HEAD", e);
+        }
+    }
+
     final void setSettings(final Settings settings) {
         this.settings = settings;
     }
@@ -134,22 +258,7 @@ public abstract class BaseMojo extends AbstractMojo {
 
     protected final void configureJsch() {
         if (!disableSshAgent) {
-            if (serverId != null) {
-                final Server server = settings.getServer(serverId);
-                if (server != null) {
-                    privateKey = privateKey == null
-                                 ? server.getPrivateKey()
-                                 : privateKey;
-                    passphrase = passphrase == null
-                                 ? server.getPassphrase()
-                                 : passphrase;
-                } else {
-                    getLog().warn(format("No server configuration in Maven settings found with id %s", serverId));
-                }
-            }
-
-            JschConfigSessionFactory
-                .setInstance(new SshAgentSessionFactory(getLog(), knownHosts, privateKey, passphrase));
+            SshAgentSessionFactory.install(getLog(), settings, serverId, knownHosts, privateKey, passphrase);
         }
     }
 }
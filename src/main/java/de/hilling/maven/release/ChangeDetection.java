@@ -0,0 +1,17 @@
+package de.hilling.maven.release;
+
+/**
+ * How changes of a module since its last release are detected.
+ */
+public enum ChangeDetection {
+    /**
+     * Walk all commits since the release tag. A module counts as changed if any of these commits touched it, even
+     * if the change has been reverted later on.
+     */
+    History,
+    /**
+     * Compare the tree of the release tag with the tree of HEAD. Only the parts of the trees that differ are
+     * visited, the cost does not depend on the number of commits.
+     */
+    Tree;
+}
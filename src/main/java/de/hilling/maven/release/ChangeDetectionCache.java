@@ -0,0 +1,136 @@
+package de.hilling.maven.release;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Persistent cache for the results of the change detection.
+ * <p>
+ * An entry is keyed by the change detection mode, the commits of the tag and of HEAD, the module path and the paths of
+ * the modules below it. Commits are immutable, so entries never become stale. The cache is stored in the git directory
+ * and is limited to {@link #MAX_ENTRIES} entries, the least recently used ones are dropped first.
+ * </p>
+ * <p>
+ * The cache may be accessed from several threads.
+ * </p>
+ */
+class ChangeDetectionCache {
+
+    static final String CACHE_DIRECTORY = "smart-release";
+    static final String CACHE_FILE      = "change-detection.cache";
+    static final int    MAX_ENTRIES     = 10000;
+
+    private final File                 cacheFile;
+    private final Log                  log;
+    private final int                  maxEntries;
+    private final Map<String, Boolean> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private       boolean              modified;
+
+    /**
+     * @param gitDirectory directory of the git repository, usually {@code .git}.
+     * @param log          logger.
+     */
+    ChangeDetectionCache(File gitDirectory, Log log) {
+        this(gitDirectory, log, MAX_ENTRIES);
+    }
+
+    ChangeDetectionCache(File gitDirectory, Log log, int maxEntries) {
+        this.cacheFile = new File(new File(gitDirectory, CACHE_DIRECTORY), CACHE_FILE);
+        this.log = log;
+        this.maxEntries = maxEntries;
+        load();
+    }
+
+    static String key(ChangeDetection changeDetection, ObjectId tagCommit, ObjectId headCommit, String modulePath,
+                      Collection<String> modulesBelow) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(changeDetection).append('\n');
+        builder.append(tagCommit.name()).append('\n');
+        builder.append(headCommit.name()).append('\n');
+        builder.append(modulePath).append('\n');
+        for (String module : modulesBelow) {
+            builder.append(module).append('\n');
+        }
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1")
+                                               .digest(builder.toString().getBytes(StandardCharsets.UTF_8));
+            return ObjectId.fromRaw(digest).name();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    synchronized Optional<Boolean> get(String key) {
+        return Optional.ofNullable(entries.get(key));
+    }
+
+    synchronized void put(String key, boolean changed) {
+        if (!Boolean.valueOf(changed).equals(entries.put(key, changed))) {
+            modified = true;
+        }
+        final Iterator<String> iterator = entries.keySet().iterator();
+        while (entries.size() > maxEntries) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Write the cache back to disk if it has been modified. Failures are logged only, the cache is just an
+     * optimization.
+     */
+    synchronized void store() {
+        if (!modified) {
+            return;
+        }
+        final List<String> lines = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Boolean> entry : entries.entrySet()) {
+            lines.add(entry.getKey() + " " + (entry.getValue()
+                                              ? "1"
+                                              : "0"));
+        }
+        try {
+            Files.createDirectories(cacheFile.getParentFile().toPath());
+            final File tempFile = File.createTempFile(CACHE_FILE, ".tmp", cacheFile.getParentFile());
+            Files.write(tempFile.toPath(), lines, StandardCharsets.UTF_8);
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+        } catch (IOException e) {
+            log.warn("unable to write change detection cache " + cacheFile + ": " + e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!cacheFile.isFile()) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+                final String[] parts = line.split(" ");
+                if (parts.length == 2 && ObjectId.isId(parts[0])) {
+                    entries.put(parts[0], "1".equals(parts[1]));
+                }
+            }
+            log.debug("loaded " + entries.size() + " entries from change detection cache");
+        } catch (IOException e) {
+            log.warn("unable to read change detection cache " + cacheFile + ": " + e.getMessage());
+            entries.clear();
+        }
+    }
+}
@@ -38,7 +38,7 @@ public class CleanupMojo extends BaseMojo {
     public void executeConcreteMojo(Scm scm, Scm originalScm, LocalGitRepo repo) throws MojoExecutionException,
                                                                                         MojoFailureException,
                                                                                         GitAPIException {
-        List<File> filesToRevert = ReleaseFileUtils.read(Constants.FILES_TO_REVERT).stream()
+        List<File> filesToRevert = ReleaseFileUtils.read(rootFile(Constants.FILES_TO_REVERT).getPath()).stream()
                                                    .map(CleanupMojo::fromString).collect(toList());
         if (!repo.revertChanges(getLog(), filesToRevert)) {
             String message = "Could not revert changes - working directory is no longer clean. Please revert changes manually";
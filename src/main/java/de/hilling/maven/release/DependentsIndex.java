@@ -0,0 +1,94 @@
+package de.hilling.maven.release;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+
+import de.hilling.maven.release.versioning.ImmutableQualifiedArtifact;
+
+/**
+ * Index from the artifacts of a reactor to the projects that depend on them or use them as parent.
+ * <p>
+ * Whenever a module is to be released, {@link #markDependentsOf} marks all of its dependents. If the modules are
+ * processed in build order, all dependencies of a module have been processed before the module itself, so
+ * {@link #isMarked} tells whether at least one of them is released. The cost is linear in the number of dependencies.
+ * </p>
+ * <p>
+ * The same holds if the modules are processed wave by wave, see {@link #waves()}.
+ * </p>
+ */
+class DependentsIndex {
+
+    private final Map<ImmutableQualifiedArtifact, List<MavenProject>> dependentsByArtifact = new HashMap<>();
+    private final Set<MavenProject>                                   marked               = new HashSet<>();
+    private final List<List<MavenProject>>                            waves                = new ArrayList<>();
+
+    /**
+     * @param projects all projects of the reactor in build order.
+     */
+    DependentsIndex(List<MavenProject> projects) {
+        final Map<ImmutableQualifiedArtifact, Integer> waveByArtifact = new HashMap<>();
+        for (MavenProject project : projects) {
+            final Set<ImmutableQualifiedArtifact> used = new HashSet<>();
+            for (Dependency dependency : project.getModel().getDependencies()) {
+                used.add(artifact(dependency.getGroupId(), dependency.getArtifactId()));
+            }
+            final MavenProject parent = project.getParent();
+            if (parent != null) {
+                used.add(artifact(parent.getGroupId(), parent.getArtifactId()));
+            }
+            int wave = 0;
+            for (ImmutableQualifiedArtifact artifact : used) {
+                dependentsByArtifact.computeIfAbsent(artifact, a -> new ArrayList<>()).add(project);
+                final Integer dependencyWave = waveByArtifact.get(artifact);
+                if (dependencyWave != null) {
+                    wave = Math.max(wave, dependencyWave + 1);
+                }
+            }
+            waveByArtifact.put(artifact(project.getGroupId(), project.getArtifactId()), wave);
+            if (wave == waves.size()) {
+                waves.add(new ArrayList<>());
+            }
+            waves.get(wave).add(project);
+        }
+    }
+
+    /**
+     * Group the projects into waves. A project only depends on projects of earlier waves, so all projects of a wave
+     * can be processed concurrently once the previous waves are done.
+     *
+     * @return waves of projects, each in build order.
+     */
+    List<List<MavenProject>> waves() {
+        return waves;
+    }
+
+    /**
+     * @param project project that is to be released.
+     */
+    void markDependentsOf(MavenProject project) {
+        final List<MavenProject> dependents = dependentsByArtifact.get(
+            artifact(project.getGroupId(), project.getArtifactId()));
+        if (dependents != null) {
+            marked.addAll(dependents);
+        }
+    }
+
+    /**
+     * @param project project to check.
+     * @return true if any dependency or the parent of the project is to be released.
+     */
+    boolean isMarked(MavenProject project) {
+        return marked.contains(project);
+    }
+
+    private static ImmutableQualifiedArtifact artifact(String groupId, String artifactId) {
+        return ImmutableQualifiedArtifact.builder().groupId(groupId).artifactId(artifactId).build();
+    }
+}
@@ -5,18 +5,19 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
-import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
-import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
 
+import de.hilling.maven.release.metrics.FlightRecorderEvent;
+import de.hilling.maven.release.metrics.ReleaseMetrics;
 import de.hilling.maven.release.repository.LocalGitRepo;
 import de.hilling.maven.release.versioning.ImmutableFixVersion;
 import de.hilling.maven.release.versioning.ImmutableModuleVersion;
 import de.hilling.maven.release.versioning.ImmutableQualifiedArtifact;
+import de.hilling.maven.release.versioning.ModuleVersion;
 import de.hilling.maven.release.versioning.ReleaseDateSingleton;
 import de.hilling.maven.release.versioning.ReleaseInfo;
 import de.hilling.maven.release.versioning.VersionNamer;
@@ -24,34 +25,44 @@ import de.hilling.maven.release.versioning.VersionNamer;
 class ModuleDependencyVerifier {
     private final ReleaseInfo            previousRelease;
     private final LocalGitRepo           gitRepo;
+    private final ReactorChangeDetector  changeDetector;
     private final Log                    log;
     private final MavenProject           rootProject;
     private final List<String>           modulesToForceRelease;
-    private final List<ReleasableModule> modules;
+    private final DependentsIndex        dependents;
     private final VersionNamer           versionNamer;
     private final MavenProject           project;
+    private final ReleaseMetrics         metrics;
+    private       String                 reason;
 
     public ModuleDependencyVerifier(MavenProject project, MavenProject rootProject, LocalGitRepo gitRepo,
-                                    ReleaseInfo previousRelease, List<String> modulesToForceRelease,
-                                    List<ReleasableModule> modules, boolean bugfixRelease, Log log) {
+                                    ReactorChangeDetector changeDetector, ReleaseInfo previousRelease,
+                                    List<String> modulesToForceRelease, DependentsIndex dependents,
+                                    boolean bugfixRelease, Log log, ReleaseMetrics metrics) {
         this.gitRepo = gitRepo;
+        this.changeDetector = changeDetector;
         this.log = log;
         this.rootProject = rootProject;
         this.modulesToForceRelease = modulesToForceRelease;
-        this.modules = modules;
+        this.dependents = dependents;
         this.previousRelease = previousRelease;
         this.versionNamer = new VersionNamer(bugfixRelease, previousRelease);
         this.project = project;
+        this.metrics = metrics;
     }
 
-    private static String calculateModulePath(MavenProject rootProject, MavenProject project) throws
+    static String calculateModulePath(MavenProject rootProject, MavenProject project) throws
                                                                                               MojoExecutionException {
+        return calculateModulePath(rootProject, project.getBasedir());
+    }
+
+    static String calculateModulePath(MavenProject rootProject, File moduleDirectory) throws MojoExecutionException {
         // Getting canonical files because on Windows, it's possible one returns "C:\..." and the other "c:\..." which is rather amazing
         File projectRoot;
         File moduleRoot;
         try {
             projectRoot = rootProject.getBasedir().getCanonicalFile();
-            moduleRoot = project.getBasedir().getCanonicalFile();
+            moduleRoot = moduleDirectory.getCanonicalFile();
         } catch (IOException e) {
             throw new MojoExecutionException("Could not find directory paths for maven project", e);
         }
@@ -63,61 +74,78 @@ class ModuleDependencyVerifier {
     }
 
     public ImmutableReleasableModule releaseInfo() throws MojoExecutionException {
+        final FlightRecorderEvent.Span event = FlightRecorderEvent.MODULE_EVALUATED.begin();
+        final long start = System.nanoTime();
+        final ImmutableReleasableModule module = verify();
+        metrics.recordModule(project.getArtifactId(), System.nanoTime() - start, module.isToBeReleased());
+        event.commit(project.getArtifactId(), module.isToBeReleased(), reason);
+        return module;
+    }
+
+    private ImmutableReleasableModule verify() throws MojoExecutionException {
         String relativePathToModule = calculateModulePath(rootProject, project);
         String artifactId = project.getArtifactId();
 
         ImmutableFixVersion newVersion = ImmutableFixVersion.copyOf(versionNamer.nextVersion(project));
 
-        boolean dependencyChanged = modules.stream().filter(ReleasableModule::isToBeReleased)
-                                           .anyMatch(this::dependencyOrParentChanged);
+        boolean dependencyChanged = dependents.isMarked(project);
         ImmutableFixVersion equivalentVersion;
         boolean toBeReleased;
 
-        final Optional<ImmutableModuleVersion> previousVersion = previousRelease.getModules().stream().filter(
-            m -> m.getArtifact().equals(artifact())).findAny();
+        final Optional<ImmutableModuleVersion> previousVersion = previousRelease.versionForArtifact(artifact());
         if (modulesToForceRelease.contains(artifactId)) {
             toBeReleased = true;
             equivalentVersion = newVersion;
+            reason = "forced";
             log.info("Releasing " + artifactId + " " + newVersion.toString() + " as we was asked to forced release.");
         } else if (dependencyChanged) {
             toBeReleased = true;
             equivalentVersion = newVersion;
+            reason = "dependency changed";
             log.info(
                 "Releasing " + artifactId + " " + newVersion.toString() + " as at least one dependency has changed.");
         } else {
             final Optional<String> tagInfo = previousVersion.map(ImmutableModuleVersion::getReleaseTag);
-            if (tagInfo.isPresent()) {
+            final Optional<Boolean> changedByFingerprint = changedByFingerprint(relativePathToModule,
+                                                                                previousVersion);
+            if (changedByFingerprint.isPresent()) {
+                toBeReleased = changedByFingerprint.get();
+                reason = toBeReleased
+                         ? "fingerprint changed"
+                         : "fingerprint unchanged";
+                if (toBeReleased) {
+                    equivalentVersion = newVersion;
+                    log.info(
+                        "using " + equivalentVersion + " for " + artifactId + " as it has changed since the last " + "release.");
+                } else {
+                    equivalentVersion = previousVersion.get().getVersion();
+                    log.info(
+                        "using " + equivalentVersion + " for " + artifactId + " as it has not been changed" + " since that release.");
+                }
+            } else if (tagInfo.isPresent()) {
+                final ObjectId previousReleaseId = previousReleaseId(previousVersion.get());
                 try {
-                    final String tagName = tagInfo.get();
-                    log.info("looking for tag with name '" + tagName + "'");
-                    final Optional<Ref> tagRef = gitRepo.getRemoteTag(tagName);
-                    if (tagRef.isPresent()) {
-                        final Ref gitTag = tagRef.get();
-                        final TreeWalkingDiffDetector detector = new TreeWalkingDiffDetector(gitRepo.git
-                                                                                                 .getRepository(), log);
-                        if (detector.hasChangedSince(relativePathToModule, moduleList(), gitTag)) {
-                            toBeReleased = true;
-                            equivalentVersion = newVersion;
-                            log.info(
-                                "using " + equivalentVersion + " for " + artifactId + " as it has changed since the last " + "release.");
-                        } else {
-                            toBeReleased = false;
-                            equivalentVersion = previousVersion.get().getVersion();
-                            log.info(
-                                "using " + equivalentVersion + " for " + artifactId + " as it has not been changed" + " since that release.");
-                        }
+                    if (changeDetector.hasChangedSince(relativePathToModule, previousReleaseId)) {
+                        toBeReleased = true;
+                        equivalentVersion = newVersion;
+                        reason = "changed since release";
+                        log.info(
+                            "using " + equivalentVersion + " for " + artifactId + " as it has changed since the last " + "release.");
                     } else {
-                        final String message = "unable to find remote tag " + tagName;
-                        log.error(message);
-                        throw new MojoExecutionException(message);
+                        toBeReleased = false;
+                        equivalentVersion = previousVersion.get().getVersion();
+                        reason = "unchanged since release";
+                        log.info(
+                            "using " + equivalentVersion + " for " + artifactId + " as it has not been changed" + " since that release.");
                     }
-                } catch (GitAPIException | IOException e) {
-                    log.error("unable to list tags: " + e.getMessage());
-                    throw new MojoExecutionException("unable to list tags", e);
+                } catch (IOException e) {
+                    log.error("unable to detect changes: " + e.getMessage());
+                    throw new MojoExecutionException("unable to detect changes", e);
                 }
             } else {
                 toBeReleased = true;
                 equivalentVersion = newVersion;
+                reason = "not released yet";
                 log.info("using " + equivalentVersion + " for " + artifactId + " as it has not been released yet.");
             }
         }
@@ -125,13 +153,41 @@ class ModuleDependencyVerifier {
         builder.project(project);
         builder.isToBeReleased(toBeReleased);
         builder.relativePathToModule(relativePathToModule);
-        builder.immutableModule(moduleVersion(equivalentVersion, previousVersion, toBeReleased).build());
+        builder.immutableModule(
+            moduleVersion(equivalentVersion, previousVersion, toBeReleased, relativePathToModule).build());
         return builder.build();
     }
 
+    private ObjectId previousReleaseId(ImmutableModuleVersion previousVersion) throws MojoExecutionException {
+        if (!gitRepo.isOffline() || !previousVersion.getReleaseCommit().isPresent()) {
+            log.info("looking for tag with name '" + previousVersion.getReleaseTag() + "'");
+        }
+        try {
+            return gitRepo.previousReleaseId(previousVersion.getReleaseTag(), previousVersion.getReleaseCommit());
+        } catch (MojoExecutionException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    private Optional<Boolean> changedByFingerprint(String relativePathToModule,
+                                                   Optional<ImmutableModuleVersion> previousVersion) throws
+                                                                                                     MojoExecutionException {
+        final Optional<String> previousFingerprint = previousVersion.flatMap(ModuleVersion::getTreeFingerprint);
+        if (!previousFingerprint.isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            return changeDetector.hasChangedSince(relativePathToModule, previousFingerprint.get());
+        } catch (IOException e) {
+            throw new MojoExecutionException("unable to compute fingerprint of " + relativePathToModule, e);
+        }
+    }
+
     private ImmutableModuleVersion.Builder moduleVersion(ImmutableFixVersion equivalentVersion,
                                                          Optional<ImmutableModuleVersion> previousVersion,
-                                                         boolean toBeReleased) {
+                                                         boolean toBeReleased, String relativePathToModule) throws
+                                                                                                            MojoExecutionException {
         final ImmutableModuleVersion.Builder moduleBuilder = ImmutableModuleVersion.builder();
         if (previousVersion.isPresent()) {
             moduleBuilder.from(previousVersion.get());
@@ -143,8 +199,18 @@ class ModuleDependencyVerifier {
         if (toBeReleased) {
             moduleBuilder.releaseTag(ReleaseDateSingleton.getInstance().tagName());
             moduleBuilder.releaseDate(ReleaseDateSingleton.getInstance().releaseDate());
+            try {
+                moduleBuilder.releaseCommit(gitRepo.git.getRepository().resolve("HEAD").name());
+            } catch (IOException e) {
+                throw new MojoExecutionException("unable to resolve HEAD", e);
+            }
         }
         moduleBuilder.version(equivalentVersion);
+        try {
+            moduleBuilder.treeFingerprint(changeDetector.fingerprint(relativePathToModule));
+        } catch (IOException e) {
+            throw new MojoExecutionException("unable to compute fingerprint of " + relativePathToModule, e);
+        }
         return moduleBuilder;
     }
 
@@ -157,40 +223,14 @@ class ModuleDependencyVerifier {
         log.info("using " + newVersion + " for " + artifactId + " for rerelease.");
         final ImmutableReleasableModule.Builder builder = ImmutableReleasableModule.builder();
         builder.project(project);
-        builder.immutableModule(moduleVersion(newVersion, Optional.empty(), true).build());
+        builder.immutableModule(moduleVersion(newVersion, Optional.empty(), true, relativePathToModule).build());
         builder.isToBeReleased(true);
         builder.relativePathToModule(relativePathToModule);
         return builder.build();
     }
 
-    private List<String> moduleList() {
-        return project.getModules();
-    }
-
     private ImmutableQualifiedArtifact artifact() {
         return ImmutableQualifiedArtifact.builder().groupId(project.getGroupId()).artifactId(project.getArtifactId())
                                          .build();
     }
-
-    private boolean dependencyOrParentChanged(ReleasableModule module) {
-        for (Dependency dependency : project.getModel().getDependencies()) {
-            if (moduleIsADependency(module, dependency)) {
-                return true;
-            }
-        }
-        return isThisProjectsParentModule(module);
-    }
-
-    private boolean moduleIsADependency(ReleasableModule module, Dependency dependency) {
-        return dependency.getGroupId().equals(module.getProject().getGroupId()) && dependency.getArtifactId().equals(
-            module.getProject().getArtifactId());
-    }
-
-    private boolean isThisProjectsParentModule(ReleasableModule module) {
-        final MavenProject parent = project.getParent();
-        final MavenProject moduleProject = module.getProject();
-        return parent != null && (parent.getGroupId().equals(moduleProject.getGroupId()) && parent.getArtifactId()
-                                                                                                  .equals(moduleProject
-                                                                                                              .getArtifactId()));
-    }
 }
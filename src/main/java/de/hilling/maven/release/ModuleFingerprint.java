@@ -0,0 +1,92 @@
+package de.hilling.maven.release;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import de.hilling.maven.release.releaseinfo.ReleaseInfoStorage;
+
+/**
+ * Computes a fingerprint of the content of a module directory.
+ * <p>
+ * For modules without child modules this is just the git tree id of the module directory. If child modules are
+ * located below the module directory, the id of the tree is used that results from removing the child module
+ * directories and the release info file. The fingerprint is the same for two commits if and only if the module has not
+ * been changed between them.
+ * </p>
+ */
+class ModuleFingerprint {
+
+    private final Repository      repo;
+    private final ModulePathIndex modules;
+
+    ModuleFingerprint(Repository repo, ModulePathIndex modules) {
+        this.repo = repo;
+        this.modules = modules;
+    }
+
+    /**
+     * @param modulePath module (directory) to compute the fingerprint for.
+     * @param commitId commit to compute the fingerprint in.
+     * @return the fingerprint, empty if the module directory does not exist in the commit.
+     * @throws IOException on git exception.
+     */
+    Optional<String> of(String modulePath, ObjectId commitId) throws IOException {
+        try (RevWalk walk = new RevWalk(repo)) {
+            final ObjectReader reader = walk.getObjectReader();
+            final RevTree rootTree = walk.parseCommit(commitId).getTree();
+            final ObjectId moduleTree;
+            if (ModulePathIndex.ROOT_MODULE.equals(modulePath)) {
+                moduleTree = rootTree;
+            } else {
+                try (TreeWalk treeWalk = TreeWalk.forPath(reader, modulePath, rootTree)) {
+                    if (treeWalk == null || !FileMode.TREE.equals(treeWalk.getRawMode(0))) {
+                        return Optional.empty();
+                    }
+                    moduleTree = treeWalk.getObjectId(0);
+                }
+            }
+            return Optional.of(fingerprint(reader, moduleTree, modulePath).name());
+        }
+    }
+
+    private ObjectId fingerprint(ObjectReader reader, ObjectId treeId, String directory) throws IOException {
+        final CanonicalTreeParser parser = new CanonicalTreeParser(null, reader, treeId);
+        final TreeFormatter formatter = new TreeFormatter();
+        boolean modified = false;
+        for (; !parser.eof(); parser.next()) {
+            final String name = parser.getEntryPathString();
+            final String path = ModulePathIndex.ROOT_MODULE.equals(directory)
+                                ? name
+                                : directory + "/" + name;
+            final FileMode mode = parser.getEntryFileMode();
+            final ObjectId entryId = parser.getEntryObjectId();
+            final boolean isTree = FileMode.TREE.equals(mode);
+            if (name.equals(ReleaseInfoStorage.RELEASE_INFO_FILE) || (isTree && modules.isModuleRoot(path))) {
+                modified = true;
+            } else if (isTree && modules.hasModulesBelow(path)) {
+                final ObjectId subtreeId = fingerprint(reader, entryId, path);
+                modified |= !subtreeId.equals(entryId);
+                formatter.append(name, mode, subtreeId);
+            } else {
+                formatter.append(name, mode, entryId);
+            }
+        }
+        if (!modified) {
+            return treeId;
+        }
+        try (ObjectInserter.Formatter idFormatter = new ObjectInserter.Formatter()) {
+            return formatter.computeId(idFormatter);
+        }
+    }
+}
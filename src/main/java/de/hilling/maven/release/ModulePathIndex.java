@@ -0,0 +1,101 @@
+package de.hilling.maven.release;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Path prefix index over the module directories of a reactor.
+ * <p>
+ * Every path in the repository belongs to the innermost module whose directory contains it. This is equivalent to
+ * looking at the module directory while ignoring the directories of its child modules.
+ * </p>
+ */
+class ModulePathIndex {
+
+    static final String ROOT_MODULE = ".";
+
+    private final Set<String>                    modulePaths;
+    private final Set<String>                    parentsOfModules = new HashSet<>();
+    private final Map<String, SortedSet<String>> modulesBelow     = new HashMap<>();
+
+    /**
+     * @param modulePaths paths of all modules relative to the repository root, "." for the root module.
+     */
+    ModulePathIndex(Collection<String> modulePaths) {
+        this.modulePaths = new HashSet<>(modulePaths);
+        for (String modulePath : this.modulePaths) {
+            modulesBelow.put(modulePath, new TreeSet<>());
+        }
+        for (String modulePath : this.modulePaths) {
+            if (ROOT_MODULE.equals(modulePath)) {
+                continue;
+            }
+            int end = modulePath.lastIndexOf('/');
+            while (end > 0) {
+                final String parent = modulePath.substring(0, end);
+                parentsOfModules.add(parent);
+                if (this.modulePaths.contains(parent)) {
+                    modulesBelow.get(parent).add(modulePath);
+                }
+                end = modulePath.lastIndexOf('/', end - 1);
+            }
+            if (this.modulePaths.contains(ROOT_MODULE)) {
+                modulesBelow.get(ROOT_MODULE).add(modulePath);
+            }
+        }
+        modulesBelow.replaceAll((modulePath, below) -> Collections.unmodifiableSortedSet(below));
+    }
+
+    /**
+     * Find the module that owns the given path.
+     *
+     * @param path path of a file relative to the repository root.
+     *
+     * @return path of the owning module or null if no module contains the path.
+     */
+    String ownerOf(String path) {
+        int end = path.lastIndexOf('/');
+        while (end > 0) {
+            final String candidate = path.substring(0, end);
+            if (modulePaths.contains(candidate)) {
+                return candidate;
+            }
+            end = path.lastIndexOf('/', end - 1);
+        }
+        return modulePaths.contains(ROOT_MODULE)
+               ? ROOT_MODULE
+               : null;
+    }
+
+    boolean isModuleRoot(String path) {
+        return modulePaths.contains(path);
+    }
+
+    /**
+     * @param path directory relative to the repository root.
+     *
+     * @return true if any module is located below the given directory.
+     */
+    boolean hasModulesBelow(String path) {
+        return parentsOfModules.contains(path);
+    }
+
+    /**
+     * @param modulePath module directory relative to the repository root.
+     *
+     * @return sorted paths of all modules located below the given module, computed once when the index is built.
+     */
+    SortedSet<String> modulesBelow(String modulePath) {
+        return modulesBelow.getOrDefault(modulePath, Collections.emptySortedSet());
+    }
+
+    int size() {
+        return modulePaths.size();
+    }
+}
@@ -6,13 +6,16 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.eclipse.jgit.api.errors.GitAPIException;
 
+import de.hilling.maven.release.metrics.ReleaseMetrics;
 import de.hilling.maven.release.releaseinfo.ReleaseInfoStorage;
+import de.hilling.maven.release.releaseinfo.ReleasePlanStorage;
 import de.hilling.maven.release.repository.LocalGitRepo;
 import de.hilling.maven.release.versioning.ReleaseInfo;
 
 /**
  * Logs the versions of the modules that the releaser will release on the next release. Does not run the build nor
- * tag the repo.
+ * tag the repo. The result is stored as release plan for a following {@code prepare}, see
+ * {@link BaseMojo#reuseReleasePlan}.
  *
  * @since 1.4.0
  */
@@ -25,9 +28,22 @@ import de.hilling.maven.release.versioning.ReleaseInfo;
 public class NextMojo extends BaseMojo {
 
     @Override
+    @SuppressWarnings("try")
     public void executeConcreteMojo(Scm scm, Scm originalScm, LocalGitRepo repo) throws MojoExecutionException, MojoFailureException, GitAPIException {
         ReleaseInfo previousRelease = new ReleaseInfoStorage(project.getBasedir(), repo.git).load();
-        Reactor.fromProjects(getLog(), repo, project, projects, modulesToForceRelease, noChangesAction, bugfixRelease,
-                             previousRelease);
+        Reactor reactor;
+        try (ReleaseMetrics.Phase ignored = metrics.phase("changeDetection")) {
+            reactor = Reactor.fromProjects(getLog(), repo, project, projects, modulesToForceRelease, noChangesAction,
+                                           bugfixRelease, changeDetection, changeDetectionThreads, previousRelease,
+                                           metrics);
+        }
+        if (reuseReleasePlan) {
+            final ReleasePlanStorage planStorage = releasePlanStorage(repo);
+            if (reactor == null) {
+                planStorage.delete();
+            } else {
+                planStorage.store(reactor.toPlan(headCommit(repo), releasePlanInputs(previousRelease)));
+            }
+        }
     }
 }
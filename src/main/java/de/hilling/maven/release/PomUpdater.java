@@ -1,31 +1,47 @@
 package de.hilling.maven.release;
 
 import java.io.File;
-import java.io.Writer;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Plugin;
-import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
-import org.codehaus.plexus.util.WriterFactory;
 
 import de.hilling.maven.release.exceptions.UnresolvedSnapshotDependencyException;
+import de.hilling.maven.release.metrics.FlightRecorderEvent;
 import de.hilling.maven.release.versioning.ImmutableFixVersion;
 
 public class PomUpdater {
 
     private final Log     log;
     private final Reactor reactor;
-
-    public PomUpdater(Log log, Reactor reactor) {
+    private final int     threads;
+
+    /**
+     * @param log     logger.
+     * @param reactor modules of the release.
+     * @param threads maximum number of threads used to read and write the poms, 0 for one per processor.
+     */
+    public PomUpdater(Log log, Reactor reactor, int threads) {
         this.log = log;
         this.reactor = reactor;
+        this.threads = threads > 0
+                       ? threads
+                       : Runtime.getRuntime().availableProcessors();
     }
 
     private static boolean isMultiModuleReleasePlugin(Plugin plugin) {
@@ -33,43 +49,125 @@ public class PomUpdater {
             "smart-release-plugin");
     }
 
+    /**
+     * Set the release versions in the poms of all modules to be released.
+     * <p>
+     * The new content of all poms is computed first, nothing is written if there are errors. The poms are then written
+     * to temporary files concurrently and moved into place one by one. If that fails, the poms already replaced are
+     * restored from a {@link PomWriteJournal}.
+     * </p>
+     *
+     * @return result containing the changed poms. On failure, the poms that could not be restored.
+     */
     public UpdateResult updateVersion() {
-        List<File> changedPoms = new ArrayList<>();
         List<String> errors = new ArrayList<>();
 
         final List<ReleasableModule> modulesToRelease = reactor.getModulesInBuildOrder().stream()
                                                       .filter(ReleasableModule::isToBeReleased)
                                                       .collect(Collectors.toList());
-        for (ReleasableModule module : modulesToRelease) {
-            try {
+        final PomWriteJournal journal = new PomWriteJournal(log);
+        final Map<File, byte[]> newContents = new LinkedHashMap<>();
+        try {
+            final List<Callable<byte[]>> reads = new ArrayList<>();
+            for (ReleasableModule module : modulesToRelease) {
+                final File pom = module.getProject().getFile().getCanonicalFile();
+                reads.add(() -> Files.readAllBytes(pom.toPath()));
+            }
+            final List<byte[]> originals = runConcurrently(reads);
+            for (int i = 0; i < modulesToRelease.size(); i++) {
+                final ReleasableModule module = modulesToRelease.get(i);
                 MavenProject project = module.getProject();
                 final ImmutableFixVersion version = module.getImmutableModule().getVersion();
                 log.info("Going to release " + module.getProject().getArtifactId() + " " + version.toString());
 
-                List<String> errorsForCurrentPom = alterModel(project, version.toString());
+                File pom = project.getFile().getCanonicalFile();
+                PomVersionRewriter rewriter = PomVersionRewriter.parse(originals.get(i));
+
+                List<String> errorsForCurrentPom = alterModel(project, version.toString(), rewriter);
                 errors.addAll(errorsForCurrentPom);
 
-                File pom = project.getFile().getCanonicalFile();
-                changedPoms.add(pom);
-                Writer fileWriter = WriterFactory.newXmlWriter(pom);
+                journal.record(pom, originals.get(i));
+                newContents.put(pom, rewriter.rewrittenBytes());
+            }
+        } catch (Exception e) {
+            return new UpdateResult(new ArrayList<>(), errors, e);
+        }
+        if (!errors.isEmpty()) {
+            return new UpdateResult(new ArrayList<>(), errors, null);
+        }
+        try {
+            write(newContents, journal);
+        } catch (Exception e) {
+            return new UpdateResult(journal.rollback(), errors, e);
+        }
+        return new UpdateResult(new ArrayList<>(newContents.keySet()), errors, null);
+    }
 
-                Model originalModel = project.getOriginalModel();
+    private void write(Map<File, byte[]> newContents, PomWriteJournal journal) throws Exception {
+        final Map<File, File> temporaries = new ConcurrentHashMap<>();
+        final List<Callable<File>> writes = new ArrayList<>();
+        for (Map.Entry<File, byte[]> entry : newContents.entrySet()) {
+            writes.add(() -> {
+                final FlightRecorderEvent.Span event = FlightRecorderEvent.POM_WRITTEN.begin();
+                final File temporary = File.createTempFile("pom", ".tmp", entry.getKey().getParentFile());
+                temporaries.put(entry.getKey(), temporary);
+                Files.write(temporary.toPath(), entry.getValue());
+                event.commit(entry.getKey().getPath(), (long) entry.getValue().length);
+                return temporary;
+            });
+        }
+        try {
+            runConcurrently(writes);
+            for (File pom : newContents.keySet()) {
+                journal.replace(pom, temporaries.get(pom));
+            }
+        } finally {
+            for (File temporary : temporaries.values()) {
+                Files.deleteIfExists(temporary.toPath());
+            }
+        }
+    }
+
+    private <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        final List<T> results = new ArrayList<>();
+        if (threads == 1 || tasks.size() < 2) {
+            for (Callable<T> task : tasks) {
+                results.add(task.call());
+            }
+            return results;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+        try {
+            final List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            Exception failure = null;
+            for (Future<T> future : futures) {
                 try {
-                    MavenXpp3Writer pomWriter = new MavenXpp3Writer();
-                    pomWriter.write(fileWriter, originalModel);
-                } finally {
-                    fileWriter.close();
+                    results.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                } catch (ExecutionException e) {
+                    failure = e.getCause() instanceof Exception
+                              ? (Exception) e.getCause()
+                              : e;
                 }
-            } catch (Exception e) {
-                return new UpdateResult(changedPoms, errors, e);
             }
+            if (failure != null) {
+                throw failure;
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
         }
-        return new UpdateResult(changedPoms, errors, null);
     }
 
-    private List<String> alterModel(MavenProject project, String newVersion) {
+    private List<String> alterModel(MavenProject project, String newVersion, PomVersionRewriter rewriter) {
         Model originalModel = project.getOriginalModel();
         originalModel.setVersion(newVersion);
+        rewriter.setProjectVersion(newVersion);
 
         List<String> errors = new ArrayList<String>();
 
@@ -80,6 +178,7 @@ public class PomUpdater {
                 ReleasableModule parentBeingReleased = reactor.find(parent.getGroupId(), parent.getArtifactId());
                 final ImmutableFixVersion version = parentBeingReleased.getImmutableModule().getVersion();
                 originalModel.getParent().setVersion(version.toString());
+                rewriter.setParentVersion(version.toString());
                 log.debug(
                     " Parent " + parentBeingReleased.getProject().getArtifactId() + " rewritten to version " + version
                                                                                                                    .toString());
@@ -97,6 +196,8 @@ public class PomUpdater {
                                                                             dependency.getArtifactId());
                     final ImmutableFixVersion dependencyVersion = dependencyBeingReleased.getImmutableModule()
                                                                                          .getVersion();
+                    rewriter.setDependencyVersion(dependency.getGroupId(), dependency.getArtifactId(),
+                                                  dependencyVersion.toString());
                     dependency.setVersion(dependencyVersion.toString());
                     log.debug(" Dependency on " + dependencyBeingReleased.getProject()
                                                                          .getArtifactId() + " rewritten to version " + dependencyVersion
@@ -0,0 +1,293 @@
+package de.hilling.maven.release;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.codehaus.plexus.util.ReaderFactory;
+import org.codehaus.plexus.util.xml.XmlStreamReader;
+
+/**
+ * Changes the versions of a pom without touching anything else.
+ * <p>
+ * The pom is scanned once for the version elements of the project, the parent and the dependencies. Only the text of
+ * those elements is replaced, everything else including comments, formatting and encoding is copied unchanged. If the
+ * project has no version element, one is added after its artifactId.
+ * </p>
+ */
+class PomVersionRewriter {
+
+    private static final String[] PROJECT_VERSION    = {"project", "version"};
+    private static final String[] PROJECT_ARTIFACT   = {"project", "artifactId"};
+    private static final String[] PARENT_VERSION     = {"project", "parent", "version"};
+    private static final String[] DEPENDENCY         = {"project", "dependencies", "dependency"};
+    private static final String[] DEPENDENCY_GROUP   = {"project", "dependencies", "dependency", "groupId"};
+    private static final String[] DEPENDENCY_ART     = {"project", "dependencies", "dependency", "artifactId"};
+    private static final String[] DEPENDENCY_VERSION = {"project", "dependencies", "dependency", "version"};
+
+    private final String content;
+    private final String encoding;
+
+    private final Map<String, List<Range>> dependencyVersions = new HashMap<>();
+    private final Map<Integer, Replacement> replacements       = new TreeMap<>();
+    private       Range                     projectVersion;
+    private       Range                     parentVersion;
+    private       int                       projectArtifactEnd = -1;
+    private       String                    projectArtifactIndent;
+
+    /**
+     * @param content  content of the pom.
+     * @param encoding encoding used to write the pom.
+     */
+    PomVersionRewriter(String content, String encoding) {
+        this.content = content;
+        this.encoding = encoding;
+        scan();
+    }
+
+    /**
+     * @param bytes content of a pom file.
+     * @return rewriter for the given content, using the encoding declared by it.
+     * @throws IOException if the content cannot be decoded.
+     */
+    static PomVersionRewriter parse(byte[] bytes) throws IOException {
+        final String encoding;
+        try (XmlStreamReader reader = ReaderFactory.newXmlReader(new ByteArrayInputStream(bytes))) {
+            encoding = reader.getEncoding();
+        }
+        return new PomVersionRewriter(new String(bytes, encoding), encoding);
+    }
+
+    /**
+     * @param version new version of the project.
+     */
+    void setProjectVersion(String version) {
+        if (projectVersion != null) {
+            replace(projectVersion, version);
+        } else if (projectArtifactEnd >= 0) {
+            replace(new Range(projectArtifactEnd, projectArtifactEnd),
+                    projectArtifactIndent + "<version>" + version + "</version>");
+        } else {
+            throw new IllegalStateException("no artifactId found for project");
+        }
+    }
+
+    /**
+     * @param version new version of the parent.
+     */
+    void setParentVersion(String version) {
+        if (parentVersion == null) {
+            throw new IllegalStateException("no version found for parent");
+        }
+        replace(parentVersion, version);
+    }
+
+    /**
+     * @param groupId    groupId of the dependency as written in the pom.
+     * @param artifactId artifactId of the dependency as written in the pom.
+     * @param version    new version of all dependencies on the given artifact.
+     */
+    void setDependencyVersion(String groupId, String artifactId, String version) {
+        final List<Range> ranges = dependencyVersions.get(dependencyKey(groupId, artifactId));
+        if (ranges == null) {
+            throw new IllegalStateException("no version found for dependency " + groupId + ":" + artifactId);
+        }
+        for (Range range : ranges) {
+            replace(range, version);
+        }
+    }
+
+    /**
+     * @return content of the pom with all versions replaced.
+     */
+    String rewrite() {
+        final StringBuilder result = new StringBuilder(content.length() + 64);
+        int position = 0;
+        for (Replacement replacement : replacements.values()) {
+            result.append(content, position, replacement.range.start).append(replacement.text);
+            position = replacement.range.end;
+        }
+        return result.append(content, position, content.length()).toString();
+    }
+
+    /**
+     * @return content of the pom with all versions replaced, in the encoding of the original pom.
+     * @throws IOException if the encoding is not supported.
+     */
+    byte[] rewrittenBytes() throws IOException {
+        return rewrite().getBytes(encoding);
+    }
+
+    private void replace(Range range, String text) {
+        replacements.put(range.start, new Replacement(range, text));
+    }
+
+    private void scan() {
+        final List<String> path = new ArrayList<>();
+        final List<Integer> contentStarts = new ArrayList<>();
+        String groupId = null;
+        String artifactId = null;
+        Range version = null;
+        int position = 0;
+        while ((position = content.indexOf('<', position)) >= 0) {
+            if (content.startsWith("<!--", position)) {
+                position = skipPast("-->", position);
+            } else if (content.startsWith("<![CDATA[", position)) {
+                position = skipPast("]]>", position);
+            } else if (content.startsWith("<?", position)) {
+                position = skipPast("?>", position);
+            } else if (content.startsWith("<!", position)) {
+                position = skipPast(">", position);
+            } else if (content.startsWith("</", position)) {
+                final Range text = new Range(contentStarts.remove(contentStarts.size() - 1), position);
+                if (matches(path, PROJECT_VERSION)) {
+                    projectVersion = trim(text);
+                } else if (matches(path, PARENT_VERSION)) {
+                    parentVersion = trim(text);
+                } else if (matches(path, DEPENDENCY_GROUP)) {
+                    groupId = trimmedText(text);
+                } else if (matches(path, DEPENDENCY_ART)) {
+                    artifactId = trimmedText(text);
+                } else if (matches(path, DEPENDENCY_VERSION)) {
+                    version = trim(text);
+                }
+                position = skipPast(">", position);
+                if (matches(path, PROJECT_ARTIFACT)) {
+                    projectArtifactEnd = position;
+                } else if (matches(path, DEPENDENCY)) {
+                    if (version != null) {
+                        dependencyVersions.computeIfAbsent(dependencyKey(groupId, artifactId),
+                                                           key -> new ArrayList<>()).add(version);
+                    }
+                    groupId = null;
+                    artifactId = null;
+                    version = null;
+                }
+                path.remove(path.size() - 1);
+            } else {
+                final int tagEnd = startTagEnd(position);
+                path.add(localName(position + 1));
+                if (matches(path, PROJECT_ARTIFACT)) {
+                    projectArtifactIndent = indentBefore(position);
+                }
+                if (content.charAt(tagEnd - 1) == '/') {
+                    path.remove(path.size() - 1);
+                } else {
+                    contentStarts.add(tagEnd + 1);
+                }
+                position = tagEnd + 1;
+            }
+        }
+    }
+
+    private int skipPast(String terminator, int position) {
+        final int end = content.indexOf(terminator, position);
+        if (end < 0) {
+            throw new IllegalStateException("unterminated markup at offset " + position);
+        }
+        return end + terminator.length();
+    }
+
+    private int startTagEnd(int position) {
+        char quote = 0;
+        for (int i = position + 1; i < content.length(); i++) {
+            final char c = content.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        throw new IllegalStateException("unterminated start tag at offset " + position);
+    }
+
+    private String localName(int start) {
+        int end = start;
+        while (end < content.length() && !Character.isWhitespace(content.charAt(end)) && content.charAt(end) != '>'
+               && content.charAt(end) != '/') {
+            end++;
+        }
+        final String name = content.substring(start, end);
+        return name.substring(name.indexOf(':') + 1);
+    }
+
+    /**
+     * @return line break and indentation to use for an element inserted after the element starting at the given
+     * offset.
+     */
+    private String indentBefore(int position) {
+        int start = position;
+        while (start > 0 && (content.charAt(start - 1) == ' ' || content.charAt(start - 1) == '\t')) {
+            start--;
+        }
+        final String indent = content.substring(start, position);
+        if (start > 0 && content.charAt(start - 1) == '\n') {
+            return (start > 1 && content.charAt(start - 2) == '\r'
+                    ? "\r\n"
+                    : "\n") + indent;
+        }
+        return indent;
+    }
+
+    private Range trim(Range range) {
+        int start = range.start;
+        int end = range.end;
+        while (start < end && Character.isWhitespace(content.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(content.charAt(end - 1))) {
+            end--;
+        }
+        return new Range(start, end);
+    }
+
+    private String trimmedText(Range range) {
+        final Range trimmed = trim(range);
+        return content.substring(trimmed.start, trimmed.end);
+    }
+
+    private static boolean matches(List<String> path, String[] expected) {
+        if (path.size() != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (!expected[i].equals(path.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String dependencyKey(String groupId, String artifactId) {
+        return Optional.ofNullable(groupId).orElse("") + ":" + Optional.ofNullable(artifactId).orElse("");
+    }
+
+    private static final class Range {
+        private final int start;
+        private final int end;
+
+        private Range(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final class Replacement {
+        private final Range  range;
+        private final String text;
+
+        private Replacement(Range range, String text) {
+            this.range = range;
+            this.text = text;
+        }
+    }
+}
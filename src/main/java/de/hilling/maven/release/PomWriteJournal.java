@@ -0,0 +1,102 @@
+package de.hilling.maven.release;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Original content of the poms changed by a release.
+ * <p>
+ * Every pom is recorded with its original content and a hash of it before it is replaced. Rolling back restores all
+ * recorded files whose content no longer matches the hash from memory, no git operation is needed.
+ * </p>
+ */
+class PomWriteJournal {
+
+    private final Map<File, Entry> entries = new LinkedHashMap<>();
+    private final Log              log;
+
+    PomWriteJournal(Log log) {
+        this.log = log;
+    }
+
+    /**
+     * @param pom      file that is going to be replaced.
+     * @param original content of the file before the release.
+     */
+    synchronized void record(File pom, byte[] original) {
+        entries.putIfAbsent(pom, new Entry(original, hash(original)));
+    }
+
+    /**
+     * Replace a recorded file with the given temporary file in one step.
+     *
+     * @param pom       recorded file.
+     * @param temporary file with the new content, in the same directory as the pom.
+     * @throws IOException if the recorded file is read-only or cannot be replaced.
+     */
+    void replace(File pom, File temporary) throws IOException {
+        if (!entries.containsKey(pom)) {
+            throw new IllegalStateException("original content of " + pom + " has not been recorded");
+        }
+        if (!Files.isWritable(pom.toPath())) {
+            throw new IOException(pom + " is not writable");
+        }
+        Files.move(temporary.toPath(), pom.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restore the original content of all recorded files that have been changed.
+     *
+     * @return files that could not be restored.
+     */
+    synchronized List<File> rollback() {
+        final List<File> failed = new ArrayList<>();
+        for (Map.Entry<File, Entry> entry : entries.entrySet()) {
+            final File pom = entry.getKey();
+            try {
+                if (pom.isFile() && Arrays.equals(entry.getValue().hash, hash(Files.readAllBytes(pom.toPath())))) {
+                    continue;
+                }
+                final File temporary = File.createTempFile("pom", ".tmp", pom.getParentFile());
+                Files.write(temporary.toPath(), entry.getValue().original);
+                Files.move(temporary.toPath(), pom.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+                log.debug("restored " + pom);
+            } catch (IOException e) {
+                log.error("Unable to restore " + pom + ": " + e.getMessage());
+                failed.add(pom);
+            }
+        }
+        return failed;
+    }
+
+    private static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] original;
+        private final byte[] hash;
+
+        private Entry(byte[] original, byte[] hash) {
+            this.original = original;
+            this.hash = hash;
+        }
+    }
+}
@@ -1,20 +1,37 @@
 package de.hilling.maven.release;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
 
 import de.hilling.maven.release.exceptions.UnresolvedSnapshotDependencyException;
 import de.hilling.maven.release.exceptions.ValidationException;
+import de.hilling.maven.release.metrics.ReleaseMetrics;
 import de.hilling.maven.release.repository.LocalGitRepo;
+import de.hilling.maven.release.utils.BufferedLog;
+import de.hilling.maven.release.versioning.ImmutableModuleVersion;
+import de.hilling.maven.release.versioning.ImmutablePlannedModule;
 import de.hilling.maven.release.versioning.ImmutableQualifiedArtifact;
+import de.hilling.maven.release.versioning.ImmutableReleasePlan;
+import de.hilling.maven.release.versioning.PlannedModule;
+import de.hilling.maven.release.versioning.ReleaseDateSingleton;
 import de.hilling.maven.release.versioning.ReleaseInfo;
+import de.hilling.maven.release.versioning.ReleasePlan;
 
 public class Reactor {
 
@@ -34,20 +51,65 @@ public class Reactor {
         return modulesInBuildOrder;
     }
 
+    @SuppressWarnings("try")
     public static Reactor fromProjects(Log log, LocalGitRepo gitRepo, MavenProject rootProject,
                                        List<MavenProject> projects, List<String> modulesToForceRelease,
                                        NoChangesAction actionWhenNoChangesDetected, boolean bugfixRelease,
-                                       ReleaseInfo previousRelease)
+                                       ChangeDetection changeDetection, int changeDetectionThreads,
+                                       ReleaseInfo previousRelease, ReleaseMetrics metrics)
         throws ValidationException, GitAPIException, MojoExecutionException {
         if (previousRelease.isEmpty()) {
             log.warn("no info file for previous releases found, assuming initial release");
         }
-        TreeWalkingDiffDetector detector = new TreeWalkingDiffDetector(gitRepo.git.getRepository(), log);
+        List<String> modulePaths = new ArrayList<>();
+        for (MavenProject project : projects) {
+            modulePaths.add(ModuleDependencyVerifier.calculateModulePath(rootProject, project));
+        }
+        ReactorChangeDetector changeDetector = new ReactorChangeDetector(gitRepo.git.getRepository(), modulePaths,
+                                                                         declaredModulePaths(rootProject, projects),
+                                                                         changeDetection, changeDetectionThreads,
+                                                                         log, metrics);
+        prefetchChanges(gitRepo, projects, modulePaths, modulesToForceRelease, previousRelease, changeDetector,
+                        metrics);
+        DependentsIndex dependents = new DependentsIndex(projects);
+        Map<MavenProject, BufferedLog> logs = new HashMap<>();
+        Map<MavenProject, ReleasableModule> modulesByProject = new HashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(changeDetectionThreads > 0
+                                                                ? changeDetectionThreads
+                                                                : Runtime.getRuntime().availableProcessors());
+        try (ReleaseMetrics.Phase ignored = metrics.phase("verifyModules")) {
+            for (List<MavenProject> wave : dependents.waves()) {
+                final Map<MavenProject, Future<ImmutableReleasableModule>> futures = new HashMap<>();
+                for (MavenProject project : wave) {
+                    final BufferedLog moduleLog = new BufferedLog(log);
+                    logs.put(project, moduleLog);
+                    final ModuleDependencyVerifier verifier = new ModuleDependencyVerifier(
+                        project, rootProject, gitRepo, changeDetector, previousRelease, modulesToForceRelease,
+                        dependents, bugfixRelease, moduleLog, metrics);
+                    futures.put(project, executor.submit(verifier::releaseInfo));
+                }
+                for (MavenProject project : wave) {
+                    final ReleasableModule module = await(futures.get(project));
+                    if (module.isToBeReleased()) {
+                        dependents.markDependentsOf(project);
+                    }
+                    modulesByProject.put(project, module);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            for (MavenProject project : projects) {
+                if (logs.containsKey(project)) {
+                    logs.get(project).replay(log);
+                }
+            }
+        }
         List<ReleasableModule> modules = new ArrayList<>();
         for (MavenProject project : projects) {
-            modules.add(new ModuleDependencyVerifier(project, rootProject, gitRepo, previousRelease,
-                                                     modulesToForceRelease,
-                                                     modules, bugfixRelease, log).releaseInfo());
+            modules.add(modulesByProject.get(project));
+        }
+        try (ReleaseMetrics.Phase ignored = metrics.phase("storeChangeDetectionCache")) {
+            changeDetector.storeCache();
         }
 
         if (!atLeastOneBeingReleased(modules)) {
@@ -61,9 +123,10 @@ public class Reactor {
                     log.warn("No changes have been detected in any modules so will re-release them all");
                     modules.clear();
                     for (MavenProject project : projects) {
-                        modules.add(new ModuleDependencyVerifier(project, rootProject, gitRepo, previousRelease,
-                                                                 modulesToForceRelease,
-                                                                 modules, bugfixRelease, log).rereleaseModule());
+                        modules.add(new ModuleDependencyVerifier(project, rootProject, gitRepo, changeDetector,
+                                                                 previousRelease, modulesToForceRelease,
+                                                                 dependents, bugfixRelease, log, metrics)
+                                        .rereleaseModule());
                     }
 
             }
@@ -72,6 +135,95 @@ public class Reactor {
         return new Reactor(modules);
     }
 
+    /**
+     * Directories of the modules declared by the projects, including those not selected for the build, e.g. with
+     * {@code -pl}. Changes below them never belong to the declaring project.
+     */
+    private static List<String> declaredModulePaths(MavenProject rootProject, List<MavenProject> projects)
+        throws MojoExecutionException {
+        final Path root = rootProject.getBasedir().toPath().toAbsolutePath().normalize();
+        final List<String> declaredPaths = new ArrayList<>();
+        for (MavenProject project : projects) {
+            for (String module : project.getModules()) {
+                File moduleDirectory = new File(project.getBasedir(), module);
+                if (moduleDirectory.isFile()) {
+                    moduleDirectory = moduleDirectory.getParentFile();
+                }
+                if (moduleDirectory.toPath().toAbsolutePath().normalize().startsWith(root)) {
+                    declaredPaths.add(ModuleDependencyVerifier.calculateModulePath(rootProject, moduleDirectory));
+                }
+            }
+        }
+        return declaredPaths;
+    }
+
+    /**
+     * Run the git part of the change detection for all modules up front and concurrently. Dependencies between the
+     * modules are not known yet, so changes are detected for modules that might be released because of a changed
+     * dependency later on as well.
+     */
+    @SuppressWarnings("try")
+    private static void prefetchChanges(LocalGitRepo gitRepo, List<MavenProject> projects, List<String> modulePaths,
+                                        List<String> modulesToForceRelease, ReleaseInfo previousRelease,
+                                        ReactorChangeDetector changeDetector, ReleaseMetrics metrics) throws
+                                                                                                     MojoExecutionException {
+        try {
+            try (ReleaseMetrics.Phase ignored = metrics.phase("prefetchFingerprints")) {
+                changeDetector.prefetchFingerprints(modulePaths);
+            }
+            final Map<String, ObjectId> tagsByModule = new HashMap<>();
+            try (ReleaseMetrics.Phase ignored = metrics.phase("lookupPreviousReleases")) {
+                for (int i = 0; i < projects.size(); i++) {
+                    final MavenProject project = projects.get(i);
+                    final String modulePath = modulePaths.get(i);
+                    if (modulesToForceRelease.contains(project.getArtifactId())) {
+                        continue;
+                    }
+                    final Optional<ImmutableModuleVersion> previousVersion = previousRelease.versionForArtifact(
+                        ImmutableQualifiedArtifact.builder().groupId(project.getGroupId())
+                                                  .artifactId(project.getArtifactId()).build());
+                    if (!previousVersion.isPresent()) {
+                        continue;
+                    }
+                    final Optional<String> previousFingerprint = previousVersion.get().getTreeFingerprint();
+                    if (previousFingerprint.isPresent() && changeDetector
+                                                               .hasChangedSince(modulePath, previousFingerprint.get())
+                                                               .isPresent()) {
+                        continue;
+                    }
+                    try {
+                        tagsByModule.put(modulePath, gitRepo.previousReleaseId(
+                            previousVersion.get().getReleaseTag(), previousVersion.get().getReleaseCommit()));
+                    } catch (MojoExecutionException e) {
+                        // reported when the module is verified, if it turns out to be needed at all
+                    }
+                }
+            }
+            try (ReleaseMetrics.Phase ignored = metrics.phase("prefetchChanges")) {
+                changeDetector.prefetchChanges(tagsByModule);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("unable to detect changes", e);
+        }
+    }
+
+    private static ReleasableModule await(Future<ImmutableReleasableModule> future) throws MojoExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("interrupted while detecting changes", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof MojoExecutionException) {
+                throw (MojoExecutionException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new MojoExecutionException("unable to detect changes", cause);
+        }
+    }
+
     private static boolean atLeastOneBeingReleased(List<ReleasableModule> modules) {
         for (ReleasableModule module : modules) {
             if (module.isToBeReleased()) {
@@ -81,6 +233,64 @@ public class Reactor {
         return false;
     }
 
+    /**
+     * @param headCommit        id of the commit the reactor has been computed for.
+     * @param inputsFingerprint fingerprint of the projects and parameters, see {@link ReleasePlanInputs}.
+     * @return plan to be stored for later runs.
+     */
+    public ImmutableReleasePlan toPlan(String headCommit, String inputsFingerprint) {
+        final ImmutableReleasePlan.Builder builder = ImmutableReleasePlan.builder().headCommit(headCommit)
+                                                                         .inputsFingerprint(inputsFingerprint);
+        for (ReleasableModule module : modulesInBuildOrder) {
+            builder.addModules(ImmutablePlannedModule.builder().relativePathToModule(module.getRelativePathToModule())
+                                                     .moduleVersion(module.getImmutableModule())
+                                                     .isToBeReleased(module.isToBeReleased()).build());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Create the reactor from a plan computed earlier for the same commit and inputs, without inspecting the
+     * repository. Modules to be released get the release date and tag of the current run.
+     *
+     * @param log         logger.
+     * @param plan        plan to use.
+     * @param rootProject root project of the reactor.
+     * @param projects    all projects of the reactor in build order.
+     * @return reactor as described by the plan.
+     * @throws MojoExecutionException if the plan does not match the projects.
+     */
+    public static Reactor fromPlan(Log log, ReleasePlan plan, MavenProject rootProject, List<MavenProject> projects)
+        throws MojoExecutionException {
+        final Map<String, PlannedModule> plannedByPath = new HashMap<>();
+        for (PlannedModule planned : plan.getModules()) {
+            plannedByPath.put(planned.getRelativePathToModule(), planned);
+        }
+        final ReleaseDateSingleton releaseDate = ReleaseDateSingleton.getInstance();
+        List<ReleasableModule> modules = new ArrayList<>();
+        for (MavenProject project : projects) {
+            final String modulePath = ModuleDependencyVerifier.calculateModulePath(rootProject, project);
+            final PlannedModule planned = plannedByPath.get(modulePath);
+            if (planned == null) {
+                throw new MojoExecutionException("release plan does not contain module " + modulePath);
+            }
+            ImmutableModuleVersion moduleVersion = planned.getModuleVersion();
+            if (planned.isToBeReleased()) {
+                moduleVersion = moduleVersion.withReleaseTag(releaseDate.tagName())
+                                             .withReleaseDate(releaseDate.releaseDate());
+                log.info("releasing " + project.getArtifactId() + " " + moduleVersion.getVersion()
+                         + " as planned for " + plan.getHeadCommit());
+            } else {
+                log.info("keeping " + project.getArtifactId() + " " + moduleVersion.getVersion()
+                         + " as planned for " + plan.getHeadCommit());
+            }
+            modules.add(ImmutableReleasableModule.builder().project(project).relativePathToModule(modulePath)
+                                                 .immutableModule(moduleVersion)
+                                                 .isToBeReleased(planned.isToBeReleased()).build());
+        }
+        return new Reactor(modules);
+    }
+
     public ReleasableModule find(String groupId, String artifactId) throws UnresolvedSnapshotDependencyException {
         final ImmutableQualifiedArtifact artifact = ImmutableQualifiedArtifact.builder().groupId(groupId)
                                                                            .artifactId(artifactId).build();
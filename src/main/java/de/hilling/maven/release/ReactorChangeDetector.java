@@ -0,0 +1,247 @@
+package de.hilling.maven.release;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+import de.hilling.maven.release.metrics.ReleaseMetrics;
+
+/**
+ * Change detection for all modules of a reactor.
+ * <p>
+ * The history or the trees between HEAD and a tag are compared only once, the result is shared by all modules
+ * released with that tag.
+ * </p>
+ * <p>
+ * If the previous release stored the fingerprint of a module, it is compared to the current fingerprint first. A
+ * different fingerprint always means that the module has changed. With {@link ChangeDetection#Tree} an equal
+ * fingerprint means that it has not, the history walk is still needed to find reverted changes though.
+ * </p>
+ * <p>
+ * Results are also kept in a {@link ChangeDetectionCache}, so repeated runs on the same commit do not need to inspect
+ * the repository again.
+ * </p>
+ * <p>
+ * Fingerprints and walks can be computed up front on several threads by calling {@link #prefetchFingerprints} and
+ * {@link #prefetchChanges}. Every task uses its own {@code RevWalk} and {@code ObjectReader} on the shared repository.
+ * </p>
+ */
+class ReactorChangeDetector {
+
+    private final TreeWalkingDiffDetector       detector;
+    private final ChangeDetection               changeDetection;
+    private final ModulePathIndex               modulePaths;
+    private final ModuleFingerprint             fingerprint;
+    private final Repository                    repo;
+    private final Collection<String>            allModulePaths;
+    private final ChangeDetectionCache          cache;
+    private final int                           threads;
+    private final Map<ObjectId, Set<String>>    changedModulesByTag  = new ConcurrentHashMap<>();
+    private final Map<String, Optional<String>> fingerprintsByModule = new ConcurrentHashMap<>();
+
+    /**
+     * @param repo            repository to inspect.
+     * @param modulePaths     paths of all modules of the reactor.
+     * @param declaredPaths   paths of all modules declared by the reactor, including those not selected for the build.
+     *                        Their directories are excluded from their parents like the ones of the reactor.
+     * @param changeDetection how to detect changes.
+     * @param threads         maximum number of threads used by the prefetch methods, 0 for one per processor.
+     * @param log             logger.
+     * @param metrics         metrics to record the walks in.
+     */
+    ReactorChangeDetector(Repository repo, Collection<String> modulePaths, Collection<String> declaredPaths,
+                          ChangeDetection changeDetection, int threads, Log log, ReleaseMetrics metrics) {
+        this.detector = new TreeWalkingDiffDetector(repo, log, metrics);
+        this.changeDetection = changeDetection;
+        final Set<String> indexedPaths = new HashSet<>(modulePaths);
+        indexedPaths.addAll(declaredPaths);
+        this.modulePaths = new ModulePathIndex(indexedPaths);
+        this.fingerprint = new ModuleFingerprint(repo, this.modulePaths);
+        this.repo = repo;
+        this.allModulePaths = modulePaths;
+        this.cache = new ChangeDetectionCache(repo.getDirectory(), log);
+        this.threads = threads > 0
+                       ? threads
+                       : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @param modulePath module (directory).
+     * @return fingerprint of the module at HEAD.
+     * @throws IOException on git exception.
+     */
+    Optional<String> fingerprint(String modulePath) throws IOException {
+        Optional<String> result = fingerprintsByModule.get(modulePath);
+        if (result == null) {
+            result = fingerprint.of(modulePath, repo.resolve("HEAD"));
+            fingerprintsByModule.put(modulePath, result);
+        }
+        return result;
+    }
+
+    /**
+     * Try to decide on changes by comparing fingerprints only.
+     *
+     * @param modulePath module (directory) to check.
+     * @param previousFingerprint fingerprint stored with the previous release of the module.
+     * @return whether the module has changed, empty if the fingerprint is not sufficient to decide.
+     * @throws IOException on git exception.
+     */
+    Optional<Boolean> hasChangedSince(String modulePath, String previousFingerprint) throws IOException {
+        final Optional<String> currentFingerprint = fingerprint(modulePath);
+        if (!currentFingerprint.isPresent()) {
+            return Optional.empty();
+        }
+        if (!currentFingerprint.get().equals(previousFingerprint)) {
+            return Optional.of(true);
+        }
+        return changeDetection == ChangeDetection.Tree
+               ? Optional.of(false)
+               : Optional.empty();
+    }
+
+    /**
+     * @param modulePath module (directory) to check.
+     * @param tagReference reference tag to compare with.
+     * @return true if the module has changed since the given tag.
+     * @throws IOException on git exception.
+     */
+    boolean hasChangedSince(String modulePath, Ref tagReference) throws IOException {
+        return hasChangedSince(modulePath, tagReference.getTarget().getObjectId());
+    }
+
+    /**
+     * @param modulePath module (directory) to check.
+     * @param tagId tag or commit to compare with.
+     * @return true if the module has changed since the given tag or commit.
+     * @throws IOException on git exception.
+     */
+    boolean hasChangedSince(String modulePath, ObjectId tagId) throws IOException {
+        Set<String> changedModules = changedModulesByTag.get(tagId);
+        if (changedModules == null) {
+            final ObjectId headId = repo.resolve("HEAD");
+            final Optional<Boolean> cached = cache.get(cacheKey(tagId, headId, modulePath));
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+            changedModules = changedModules(tagId, headId);
+        }
+        return changedModules.contains(modulePath);
+    }
+
+    /**
+     * Compute the fingerprints of the given modules concurrently.
+     *
+     * @param modules modules (directories) to compute the fingerprints for.
+     * @throws IOException on git exception.
+     */
+    void prefetchFingerprints(Collection<String> modules) throws IOException {
+        final List<Callable<Optional<String>>> tasks = new ArrayList<>();
+        for (String module : modules) {
+            tasks.add(() -> fingerprint(module));
+        }
+        runConcurrently(tasks);
+    }
+
+    /**
+     * Detect the changes since the given tags concurrently. Every tag is processed only once, tags for which all
+     * results are cached already are skipped.
+     *
+     * @param tagsByModule tag or commit to compare with for each module (directory).
+     * @throws IOException on git exception.
+     */
+    void prefetchChanges(Map<String, ObjectId> tagsByModule) throws IOException {
+        final ObjectId headId = repo.resolve("HEAD");
+        final Set<ObjectId> tagsToProcess = new HashSet<>();
+        for (Map.Entry<String, ObjectId> entry : tagsByModule.entrySet()) {
+            final ObjectId tagId = entry.getValue();
+            if (!changedModulesByTag.containsKey(tagId)
+                && !cache.get(cacheKey(tagId, headId, entry.getKey())).isPresent()) {
+                tagsToProcess.add(tagId);
+            }
+        }
+        final List<Callable<Set<String>>> tasks = new ArrayList<>();
+        for (ObjectId tagId : tagsToProcess) {
+            tasks.add(() -> changedModules(tagId, headId));
+        }
+        runConcurrently(tasks);
+    }
+
+    /**
+     * Persist the results of the change detection for later runs.
+     */
+    void storeCache() {
+        cache.store();
+    }
+
+    private Set<String> changedModules(ObjectId tagId, ObjectId headId) throws IOException {
+        final Set<String> changedModules = changeDetection == ChangeDetection.Tree
+                                           ? detector.changedModulesBetweenTrees(modulePaths, tagId)
+                                           : detector.changedModulesSince(modulePaths, tagId);
+        changedModulesByTag.put(tagId, changedModules);
+        for (String path : allModulePaths) {
+            cache.put(cacheKey(tagId, headId, path), changedModules.contains(path));
+        }
+        return changedModules;
+    }
+
+    private <T> void runConcurrently(List<Callable<T>> tasks) throws IOException {
+        if (threads == 1 || tasks.size() < 2) {
+            for (Callable<T> task : tasks) {
+                call(task);
+            }
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+        try {
+            final List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<T> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while detecting changes", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("unable to detect changes", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> void call(Callable<T> task) throws IOException {
+        try {
+            task.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("unable to detect changes", e);
+        }
+    }
+
+    private String cacheKey(ObjectId tagId, ObjectId headId, String modulePath) {
+        return ChangeDetectionCache.key(changeDetection, tagId, headId, modulePath,
+                                        modulePaths.modulesBelow(modulePath));
+    }
+}
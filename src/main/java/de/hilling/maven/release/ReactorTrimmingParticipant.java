@@ -0,0 +1,197 @@
+package de.hilling.maven.release;
+
+import static de.hilling.maven.release.utils.GitHelper.getRemoteUrlOrNullIfNoneSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import de.hilling.maven.release.metrics.ReleaseMetrics;
+import de.hilling.maven.release.releaseinfo.ReleaseInfoStorage;
+import de.hilling.maven.release.repository.LocalGitRepo;
+import de.hilling.maven.release.utils.Constants;
+import de.hilling.maven.release.utils.PlexusLog;
+import de.hilling.maven.release.utils.ReleaseFileUtils;
+import de.hilling.maven.release.utils.SshAgentSessionFactory;
+import de.hilling.maven.release.versioning.ReleaseInfo;
+
+/**
+ * Removes all modules from the build that would not be released.
+ * <p>
+ * Only active if the plugin is declared with {@code <extensions>true</extensions>} and the build is started with
+ * {@code -DtrimReactor=true}. The property is not read from the plugin configuration, since the goals themselves need
+ * the complete reactor. The modules are determined by the same change detection as the {@code next} goal, so a
+ * single maven run analyses and builds the changed modules, without building the project models again for a second
+ * run. The parameters of the change detection are taken from the user properties or the configuration of the plugin
+ * in the top level project.
+ * </p>
+ * <p>
+ * After {@code prepare}, the modules listed in {@code modules-to-build.txt} are used instead, so the release build
+ * does not need {@code -pl}. The list is only used while HEAD is the release info commit of {@code prepare} and the
+ * files to revert have not been cleaned up.
+ * </p>
+ */
+public class ReactorTrimmingParticipant extends AbstractMavenLifecycleParticipant {
+
+    static final String TRIM_REACTOR = "trimReactor";
+
+    private static final String PLUGIN_KEY = "de.hilling.maven.release:smart-release-plugin";
+
+    /**
+     * Injected by the container, see {@code META-INF/plexus/components.xml}.
+     */
+    private Logger logger;
+
+    @Override
+    public void afterProjectsRead(MavenSession session) throws MavenExecutionException {
+        if (!Boolean.parseBoolean(session.getUserProperties().getProperty(TRIM_REACTOR))) {
+            return;
+        }
+        final Log log = new PlexusLog(logger);
+        final MavenProject rootProject = session.getTopLevelProject();
+        final List<MavenProject> projects = session.getProjects();
+        try {
+            configureJsch(session, log);
+            final LocalGitRepo repo = LocalGitRepo.fromDirectory(rootProject.getBasedir(), getRemoteUrlOrNullIfNoneSet(
+                rootProject.getOriginalModel().getScm(), rootProject.getModel().getScm()), log);
+            final ReleaseInfoStorage infoStorage = new ReleaseInfoStorage(rootProject.getBasedir(), repo.git);
+            final File moduleBuildFile = new File(rootProject.getBasedir(), Constants.MODULE_BUILD_FILE);
+            final List<MavenProject> modulesToBuild = isPrepared(rootProject, moduleBuildFile, infoStorage, log)
+                                                      ? preparedModules(moduleBuildFile, rootProject, projects, log)
+                                                      : modulesToRelease(session, repo, infoStorage, rootProject,
+                                                                         projects, log);
+            if (modulesToBuild == null) {
+                log.warn("No modules to release, the reactor is left unchanged");
+                return;
+            }
+            log.info("Building " + modulesToBuild.size() + " of " + projects.size() + " modules: "
+                     + modulesToBuild.stream().map(MavenProject::getArtifactId).collect(Collectors.joining(", ")));
+            session.setProjects(modulesToBuild);
+        } catch (Exception e) {
+            throw new MavenExecutionException("Unable to determine the modules to release: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@code prepare} writes both {@code modules-to-build.txt} and {@code files-to-revert.txt} and commits the release
+     * info. A module list without these, written by {@code next} or left over after a skipped cleanup, is stale.
+     */
+    private static boolean isPrepared(MavenProject rootProject, File moduleBuildFile, ReleaseInfoStorage infoStorage,
+                                      Log log) throws IOException {
+        if (!moduleBuildFile.isFile()) {
+            return false;
+        }
+        if (new File(rootProject.getBasedir(), Constants.FILES_TO_REVERT).isFile() && infoStorage.isStoredAtHead()) {
+            return true;
+        }
+        log.info("ignoring " + moduleBuildFile + ", HEAD is not prepared for a release");
+        return false;
+    }
+
+    /**
+     * After {@code prepare} the poms already carry the release versions, use the modules it has selected.
+     */
+    private static List<MavenProject> preparedModules(File moduleBuildFile, MavenProject rootProject,
+                                                      List<MavenProject> projects, Log log) throws
+                                                                                            MojoExecutionException {
+        log.info("using the modules prepared for the release in " + moduleBuildFile);
+        final Set<String> modulePaths = new HashSet<>();
+        for (String line : ReleaseFileUtils.read(moduleBuildFile.getPath())) {
+            Arrays.stream(line.split(",")).map(String::trim).forEach(modulePaths::add);
+        }
+        final List<MavenProject> modules = new ArrayList<>();
+        for (MavenProject project : projects) {
+            if (modulePaths.contains(ModuleDependencyVerifier.calculateModulePath(rootProject, project))) {
+                modules.add(project);
+            }
+        }
+        return modules;
+    }
+
+    private static List<MavenProject> modulesToRelease(MavenSession session, LocalGitRepo repo,
+                                                       ReleaseInfoStorage infoStorage, MavenProject rootProject,
+                                                       List<MavenProject> projects, Log log) throws Exception {
+        repo.setRemoteTagsTtl(Integer.parseInt(parameter(session, "remoteTagsTtl", Constants.DEFAULT_REMOTE_TAGS_TTL)));
+        repo.setLocalTagsFirst(
+            Boolean.parseBoolean(parameter(session, "localTagsFirst", Constants.DEFAULT_LOCAL_TAGS_FIRST)));
+        repo.setOffline(
+            session.isOffline() || Boolean.parseBoolean(parameter(session, "offline", Constants.DEFAULT_OFFLINE)));
+        final ReleaseInfo previousRelease = infoStorage.load();
+        final Reactor reactor = Reactor.fromProjects(
+            log, repo, rootProject, projects, listParameter(session, "forceRelease"),
+            NoChangesAction.valueOf(parameter(session, "noChangesAction", Constants.DEFAULT_NO_CHANGES_ACTION)),
+            Boolean.parseBoolean(parameter(session, "bugfixRelease", Constants.DEFAULT_BUGFIX_RELEASE)),
+            ChangeDetection.valueOf(parameter(session, "changeDetection", Constants.DEFAULT_CHANGE_DETECTION)),
+            Integer.parseInt(parameter(session, "changeDetectionThreads", Constants.DEFAULT_CHANGE_DETECTION_THREADS)),
+            previousRelease, ReleaseMetrics.disabled());
+        if (reactor == null) {
+            return null;
+        }
+        return reactor.getModulesInBuildOrder().stream().filter(ReleasableModule::isToBeReleased)
+                      .map(ReleasableModule::getProject).collect(Collectors.toList());
+    }
+
+    /**
+     * Same ssh setup as the goals, the remote tags are listed before any goal has run.
+     */
+    private static void configureJsch(MavenSession session, Log log) {
+        if (!Boolean.parseBoolean(parameter(session, "disableSshAgent", "false"))) {
+            SshAgentSessionFactory.install(log, session.getSettings(), parameter(session, "serverId", null),
+                                           parameter(session, "knownHosts", null),
+                                           parameter(session, "privateKey", null),
+                                           parameter(session, "passphrase", null));
+        }
+    }
+
+    private static String parameter(MavenSession session, String name, String defaultValue) {
+        final String property = session.getUserProperties().getProperty(name);
+        if (property != null) {
+            return property;
+        }
+        final Xpp3Dom configuration = configuration(session.getTopLevelProject());
+        if (configuration != null && configuration.getChild(name) != null
+            && configuration.getChild(name).getValue() != null) {
+            return configuration.getChild(name).getValue().trim();
+        }
+        return defaultValue;
+    }
+
+    private static List<String> listParameter(MavenSession session, String name) {
+        final String property = session.getUserProperties().getProperty(name);
+        if (property != null) {
+            return Arrays.stream(property.split(",")).map(String::trim).filter(value -> !value.isEmpty())
+                         .collect(Collectors.toList());
+        }
+        final List<String> values = new ArrayList<>();
+        final Xpp3Dom configuration = configuration(session.getTopLevelProject());
+        if (configuration != null && configuration.getChild(name) != null) {
+            for (Xpp3Dom child : configuration.getChild(name).getChildren()) {
+                values.add(child.getValue().trim());
+            }
+        }
+        return values;
+    }
+
+    private static Xpp3Dom configuration(MavenProject project) {
+        final Plugin plugin = project.getPlugin(PLUGIN_KEY);
+        if (plugin == null || !(plugin.getConfiguration() instanceof Xpp3Dom)) {
+            return null;
+        }
+        return (Xpp3Dom) plugin.getConfiguration();
+    }
+}
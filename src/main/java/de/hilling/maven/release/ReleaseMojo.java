@@ -3,6 +3,7 @@ package de.hilling.maven.release;
 import static de.hilling.maven.release.Reactor.fromProjects;
 import static java.util.stream.Collectors.joining;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -13,16 +14,21 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
 
 import de.hilling.maven.release.exceptions.ValidationException;
+import de.hilling.maven.release.metrics.ReleaseMetrics;
 import de.hilling.maven.release.releaseinfo.ReleaseInfoStorage;
+import de.hilling.maven.release.releaseinfo.ReleasePlanStorage;
 import de.hilling.maven.release.repository.LocalGitRepo;
 import de.hilling.maven.release.utils.Constants;
 import de.hilling.maven.release.utils.ReleaseFileUtils;
 import de.hilling.maven.release.versioning.ImmutableReleaseInfo;
 import de.hilling.maven.release.versioning.ReleaseDateSingleton;
 import de.hilling.maven.release.versioning.ReleaseInfo;
+import de.hilling.maven.release.versioning.ReleasePlan;
 
 /**
  * Prepares the project release.
@@ -31,7 +37,8 @@ import de.hilling.maven.release.versioning.ReleaseInfo;
  * <ul>
  *     <li>Check if the repository is clean.</li>
  *     <li>Check which modules need to be released. This is accomplished by comparing the git history to the
- *     version information in <code>.release-info.json</code></li>
+ *     version information in <code>.release-info.json</code>, unless a release plan stored by the next-mojo for the
+ *     same commit can be reused.</li>
  *     <li>The corresponding poms are updated and the list of modules to build is
  *      stored in <code>modules-to-build.txt</code></li>
  *     <li>All files that should be cleaned up/reverted later are stored in <code>files-to-revert.txt</code></li>
@@ -44,18 +51,61 @@ import de.hilling.maven.release.versioning.ReleaseInfo;
       )
 public class ReleaseMojo extends BaseMojo {
 
+    /**
+     * Maximum number of threads used to read and write the poms of the modules to release. Defaults to the number of
+     * available processors.
+     */
+    @Parameter(alias = "pomWriteThreads", defaultValue = "0", property = "pomWriteThreads")
+    protected int     pomWriteThreads;
+    /**
+     * Only check the pom of the aggregator and the directories of the other modules for uncommitted changes, instead
+     * of the whole working tree. Changes to other files in the root directory, like documentation, are ignored.
+     */
+    @Parameter(alias = "checkReactorDirectoriesOnly", defaultValue = "false", property = "checkReactorDirectoriesOnly")
+    protected boolean checkReactorDirectoriesOnly;
+
+    /**
+     * @return the pom of the aggregator and the directories of the other modules. The directory of the aggregator is
+     * the root of the repository, so it would cover the whole working tree.
+     */
+    private List<File> reactorPaths() {
+        final File root = project.getBasedir().getAbsoluteFile();
+        return projects.stream()
+                       .map(module -> root.equals(module.getBasedir().getAbsoluteFile())
+                                      ? module.getFile()
+                                      : module.getBasedir())
+                       .collect(Collectors.toList());
+    }
+
     @Override
+    @SuppressWarnings("try")
     public void executeConcreteMojo(Scm scm, Scm originalScm, LocalGitRepo repo) throws MojoExecutionException,
                                                                                         MojoFailureException,
                                                                                         GitAPIException {
-        repo.errorIfNotClean();
+        try (ReleaseMetrics.Phase ignored = metrics.phase("checkClean")) {
+            if (checkReactorDirectoriesOnly) {
+                repo.errorIfNotClean(reactorPaths());
+            } else {
+                repo.errorIfNotClean();
+            }
+        }
 
         final ReleaseInfoStorage infoStorage = new ReleaseInfoStorage(project.getBasedir(), repo.git);
         ReleaseInfo previousRelease = infoStorage.load();
         getLog().info("previous release: " + previousRelease);
 
-        Reactor reactor = fromProjects(getLog(), repo, project, projects, modulesToForceRelease, noChangesAction,
-                                       bugfixRelease, previousRelease);
+        Reactor reactor;
+        try (ReleaseMetrics.Phase ignored = metrics.phase("changeDetection")) {
+            final Optional<ReleasePlan> plan = loadReleasePlan(repo, previousRelease);
+            if (plan.isPresent()) {
+                getLog().info("using release plan computed by the next goal");
+                reactor = Reactor.fromPlan(getLog(), plan.get(), project, projects);
+            } else {
+                reactor = fromProjects(getLog(), repo, project, projects, modulesToForceRelease, noChangesAction,
+                                       bugfixRelease, changeDetection, changeDetectionThreads, previousRelease,
+                                       metrics);
+            }
+        }
         if (reactor == null) {
             return;
         }
@@ -72,22 +122,42 @@ public class ReleaseMojo extends BaseMojo {
                 modulesToRelease.add(releasableModule.getRelativePathToModule());
             }
         }
+        metrics.count(ReleaseMetrics.MODULES, releasableModules.size());
+        metrics.count(ReleaseMetrics.MODULES_RELEASED, modulesToRelease.size());
 
         final ImmutableReleaseInfo currentRelease = releaseBuilder.build();
-        infoStorage.store(currentRelease);
+        final ObjectId releaseInfoBlob;
+        try (ReleaseMetrics.Phase ignored = metrics.phase("storeReleaseInfo")) {
+            releaseInfoBlob = infoStorage.store(currentRelease);
+        }
         getLog().info("current release: " + currentRelease);
 
         saveModulesToBuild(reactor);
 
-        saveFilesToRevert(repo, reactor);
+        try (ReleaseMetrics.Phase ignored = metrics.phase("writePoms")) {
+            saveFilesToRevert(repo, reactor);
+        }
 
-        tagRepo(repo, currentRelease);
+        try (ReleaseMetrics.Phase ignored = metrics.phase("tag")) {
+            tagRepo(repo, currentRelease, releaseInfoBlob);
+        }
+    }
+
+    private Optional<ReleasePlan> loadReleasePlan(LocalGitRepo repo, ReleaseInfo previousRelease) throws
+                                                                                                  MojoExecutionException {
+        if (!reuseReleasePlan) {
+            return Optional.empty();
+        }
+        final ReleasePlanStorage planStorage = releasePlanStorage(repo);
+        final Optional<ReleasePlan> plan = planStorage.load(headCommit(repo), releasePlanInputs(previousRelease));
+        planStorage.delete();
+        return plan;
     }
 
-    private static List<String> updatePomsAndReturnChangedFiles(Log log, LocalGitRepo repo, Reactor reactor) throws
-                                                                                                             MojoExecutionException,
-                                                                                                             ValidationException {
-        PomUpdater pomUpdater = new PomUpdater(log, reactor);
+    private List<String> updatePomsAndReturnChangedFiles(Log log, LocalGitRepo repo, Reactor reactor) throws
+                                                                                                      MojoExecutionException,
+                                                                                                      ValidationException {
+        PomUpdater pomUpdater = new PomUpdater(log, reactor, pomWriteThreads);
         PomUpdater.UpdateResult result = pomUpdater.updateVersion();
         if (!result.success()) {
             log.info("Going to revert changes because there was an error.");
@@ -111,22 +181,24 @@ public class ReleaseMojo extends BaseMojo {
 
     private void saveFilesToRevert(LocalGitRepo repo, Reactor reactor) throws MojoExecutionException {
         final List<String> changedFiles = updatePomsAndReturnChangedFiles(getLog(), repo, reactor);
-        changedFiles.add(Constants.MODULE_BUILD_FILE);
-        changedFiles.add(Constants.FILES_TO_REVERT);
-        ReleaseFileUtils.write(Constants.FILES_TO_REVERT, changedFiles.stream().collect(joining("\n")));
+        changedFiles.add(ReleaseFileUtils.canonicalName(rootFile(Constants.MODULE_BUILD_FILE)));
+        changedFiles.add(ReleaseFileUtils.canonicalName(rootFile(Constants.FILES_TO_REVERT)));
+        ReleaseFileUtils.write(rootFile(Constants.FILES_TO_REVERT).getPath(),
+                               changedFiles.stream().collect(joining("\n")));
     }
 
     private void saveModulesToBuild(Reactor reactor) {
         final String changedModules = reactor.getModulesInBuildOrder().stream().filter(ReleasableModule::isToBeReleased)
                                              .map(ReleasableModule::getRelativePathToModule)
                                              .collect(joining(","));
-        ReleaseFileUtils.write(Constants.MODULE_BUILD_FILE, changedModules);
+        ReleaseFileUtils.write(rootFile(Constants.MODULE_BUILD_FILE).getPath(), changedModules);
     }
 
-    private void tagRepo(LocalGitRepo repo, ImmutableReleaseInfo releaseInfo) throws GitAPIException {
+    private void tagRepo(LocalGitRepo repo, ImmutableReleaseInfo releaseInfo, ObjectId releaseInfoBlob) throws
+                                                                                                     GitAPIException {
         final Optional<String> optionalTag = releaseInfo.getTagName();
         if (optionalTag.isPresent()) {
-            final AnnotatedTag tag = new AnnotatedTag(optionalTag.get(), releaseInfo);
+            final AnnotatedTag tag = new AnnotatedTag(optionalTag.get(), releaseInfo, releaseInfoBlob);
 
             getLog().info("About to tag repository with " + releaseInfo.toString());
             repo.tagRepo(tag);
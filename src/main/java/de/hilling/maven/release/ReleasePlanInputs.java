@@ -0,0 +1,64 @@
+package de.hilling.maven.release;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.lib.ObjectId;
+
+import de.hilling.maven.release.versioning.GsonFactory;
+import de.hilling.maven.release.versioning.ReleaseInfo;
+
+/**
+ * Fingerprint of everything besides the git history that decides which modules are released with which versions.
+ * <p>
+ * Covers the poms of all projects of the reactor, the previous release info and the parameters of the mojo, including
+ * those deciding how the tags of previous releases are resolved. A
+ * {@link de.hilling.maven.release.versioning.ReleasePlan} is only reused if this fingerprint and HEAD are unchanged.
+ * </p>
+ */
+final class ReleasePlanInputs {
+
+    private static final String FORMAT = "2";
+
+    private ReleasePlanInputs() {
+    }
+
+    static String fingerprint(MavenProject rootProject, List<MavenProject> projects,
+                              List<String> modulesToForceRelease, NoChangesAction noChangesAction,
+                              boolean bugfixRelease, ChangeDetection changeDetection, boolean offline,
+                              boolean localTagsFirst, int remoteTagsTtl, ReleaseInfo previousRelease)
+        throws MojoExecutionException {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            update(digest, FORMAT);
+            update(digest, String.valueOf(modulesToForceRelease));
+            update(digest, String.valueOf(noChangesAction));
+            update(digest, String.valueOf(bugfixRelease));
+            update(digest, String.valueOf(changeDetection));
+            update(digest, String.valueOf(offline));
+            update(digest, String.valueOf(localTagsFirst));
+            update(digest, String.valueOf(remoteTagsTtl));
+            update(digest, new GsonFactory().createGson().toJson(previousRelease));
+            for (MavenProject project : projects) {
+                update(digest, ModuleDependencyVerifier.calculateModulePath(rootProject, project));
+                digest.update(Files.readAllBytes(project.getFile().toPath()));
+            }
+            return ObjectId.fromRaw(digest.digest()).name();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        } catch (IOException e) {
+            throw new MojoExecutionException("unable to read poms of the reactor", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+}
@@ -2,8 +2,10 @@ package de.hilling.maven.release;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.maven.plugin.logging.Log;
 import org.eclipse.jgit.lib.ObjectId;
@@ -11,21 +13,53 @@ import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
 
+import de.hilling.maven.release.metrics.FlightRecorderEvent;
+import de.hilling.maven.release.metrics.ReleaseMetrics;
 import de.hilling.maven.release.releaseinfo.ReleaseInfoStorage;
 
 public class TreeWalkingDiffDetector {
 
-    private final Repository repo;
-    private final Log log;
+    private static final TreeFilter RELEASE_INFO_FILTER = new TreeFilter() {
+        @Override
+        public boolean include(TreeWalk walker) throws IOException {
+            final String nameString = walker.getPathString();
+            return !nameString.endsWith(ReleaseInfoStorage.RELEASE_INFO_FILE);
+        }
+
+        @Override
+        public boolean shouldBeRecursive() {
+            return true;
+        }
+
+        @Override
+        public TreeFilter clone() {
+            return this;
+        }
+    };
+
+    private final Repository     repo;
+    private final Log            log;
+    private final ReleaseMetrics metrics;
 
     public TreeWalkingDiffDetector(Repository repo, Log log) {
+        this(repo, log, ReleaseMetrics.disabled());
+    }
+
+    /**
+     * @param repo    repository to inspect.
+     * @param log     logger.
+     * @param metrics metrics to record the number of walks and commits in.
+     */
+    public TreeWalkingDiffDetector(Repository repo, Log log, ReleaseMetrics metrics) {
         this.repo = repo;
         this.log = log;
+        this.metrics = metrics;
     }
 
     private static void stopWalkingWhenTheTagsAreHit(Ref tagReference, RevWalk walk) throws IOException {
@@ -63,6 +97,111 @@ public class TreeWalkingDiffDetector {
         }
     }
 
+    /**
+     * Detect changes in all given modules with a single walk over the history.
+     * <p>
+     * Each path changed by a commit between the tag and HEAD is attributed to the module owning it. Merge commits only
+     * count for a module if they differ from all of their parents, changes merged from other branches are picked up
+     * from the commits on these branches.
+     * </p>
+     *
+     * @param modules index of all module directories.
+     * @param tagCommit tag or commit to stop at.
+     * @return paths of all modules with changes since the tag.
+     * @throws IOException on git exception.
+     */
+    public Set<String> changedModulesSince(ModulePathIndex modules, ObjectId tagCommit) throws IOException {
+        final Set<String> changedModules = new HashSet<>();
+        final FlightRecorderEvent.Span event = FlightRecorderEvent.TREE_WALK.begin();
+        final WalkStatistics statistics = new WalkStatistics();
+        try (RevWalk walk = new RevWalk(repo); TreeWalk treeWalk = new TreeWalk(walk.getObjectReader())) {
+            walk.setRetainBody(false);
+            walk.markStart(walk.parseCommit(repo.resolve("HEAD")));
+            walk.markUninteresting(walk.parseCommit(tagCommit));
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(AndTreeFilter.create(RELEASE_INFO_FILTER, TreeFilter.ANY_DIFF));
+            for (RevCommit commit : walk) {
+                statistics.commits++;
+                final Set<String> changedInCommit = changedModulesInCommit(modules, walk, treeWalk, commit,
+                                                                           statistics);
+                if (!changedInCommit.isEmpty()) {
+                    log.debug("change detected in " + changedInCommit + ": " + commit);
+                    changedModules.addAll(changedInCommit);
+                }
+                if (changedModules.size() == modules.size()) {
+                    break;
+                }
+            }
+            metrics.count(ReleaseMetrics.HISTORY_WALKS, 1);
+            metrics.count(ReleaseMetrics.COMMITS_WALKED, statistics.commits);
+        }
+        event.commit(ChangeDetection.History.name(), tagCommit.name(), statistics.commits, statistics.paths,
+                     changedModules.size());
+        return changedModules;
+    }
+
+    /**
+     * Detect changes in all given modules by comparing the tree of the tag with the tree of HEAD.
+     * <p>
+     * Subtrees with identical object ids are skipped, so the cost depends on the size of the changed part of the
+     * tree only. Changes that have been reverted since the tag are not detected.
+     * </p>
+     *
+     * @param modules index of all module directories.
+     * @param tagCommit tag or commit to compare with.
+     * @return paths of all modules with changes since the tag.
+     * @throws IOException on git exception.
+     */
+    public Set<String> changedModulesBetweenTrees(ModulePathIndex modules, ObjectId tagCommit) throws IOException {
+        final FlightRecorderEvent.Span event = FlightRecorderEvent.TREE_WALK.begin();
+        final WalkStatistics statistics = new WalkStatistics();
+        try (RevWalk walk = new RevWalk(repo); TreeWalk treeWalk = new TreeWalk(walk.getObjectReader())) {
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(AndTreeFilter.create(RELEASE_INFO_FILTER, TreeFilter.ANY_DIFF));
+            treeWalk.reset(walk.parseCommit(tagCommit).getTree(), walk.parseCommit(repo.resolve("HEAD")).getTree());
+            final Set<String> changedModules = changedModules(modules, treeWalk, statistics);
+            metrics.count(ReleaseMetrics.TREE_COMPARISONS, 1);
+            event.commit(ChangeDetection.Tree.name(), tagCommit.name(), statistics.commits, statistics.paths,
+                         changedModules.size());
+            log.debug("changes detected between trees: " + changedModules);
+            return changedModules;
+        }
+    }
+
+    private Set<String> changedModulesInCommit(ModulePathIndex modules, RevWalk walk, TreeWalk treeWalk,
+                                               RevCommit commit, WalkStatistics statistics) throws IOException {
+        if (commit.getParentCount() == 0) {
+            treeWalk.reset();
+            treeWalk.addTree(new EmptyTreeIterator());
+            treeWalk.addTree(commit.getTree());
+            return changedModules(modules, treeWalk, statistics);
+        }
+        Set<String> result = null;
+        for (RevCommit parent : commit.getParents()) {
+            treeWalk.reset(walk.parseCommit(parent).getTree(), commit.getTree());
+            final Set<String> changedSinceParent = changedModules(modules, treeWalk, statistics);
+            if (result == null) {
+                result = changedSinceParent;
+            } else {
+                result.retainAll(changedSinceParent);
+            }
+        }
+        return result;
+    }
+
+    private Set<String> changedModules(ModulePathIndex modules, TreeWalk treeWalk, WalkStatistics statistics) throws
+                                                                                                           IOException {
+        final Set<String> result = new HashSet<>();
+        while (treeWalk.next()) {
+            statistics.paths++;
+            final String owner = modules.ownerOf(treeWalk.getPathString());
+            if (owner != null) {
+                result.add(owner);
+            }
+        }
+        return result;
+    }
+
     private void filterOutOtherModulesChanges(String modulePath, List<String> childModules, RevWalk walk) {
         boolean isRootModule = ".".equals(modulePath);
         boolean isMultiModuleProject = !isRootModule || !childModules.isEmpty();
@@ -85,23 +224,14 @@ public class TreeWalkingDiffDetector {
         TreeFilter treeFilter = treeFilters.size() == 1
                                 ? treeFilters.get(0)
                                 : AndTreeFilter.create(treeFilters);
-        TreeFilter releaseInfoFilter = new TreeFilter() {
-            @Override
-            public boolean include(TreeWalk walker) throws IOException {
-                final String nameString = walker.getPathString();
-                return !nameString.endsWith(ReleaseInfoStorage.RELEASE_INFO_FILE);
-            }
-
-            @Override
-            public boolean shouldBeRecursive() {
-                return true;
-            }
+        walk.setTreeFilter(AndTreeFilter.create(RELEASE_INFO_FILTER, treeFilter));
+    }
 
-            @Override
-            public TreeFilter clone() {
-                return this;
-            }
-        };
-        walk.setTreeFilter(AndTreeFilter.create(releaseInfoFilter, treeFilter));
+    /**
+     * Number of commits and changed paths visited by a single walk.
+     */
+    private static final class WalkStatistics {
+        private long commits;
+        private long paths;
     }
 }
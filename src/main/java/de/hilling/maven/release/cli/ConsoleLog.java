@@ -0,0 +1,109 @@
+package de.hilling.maven.release.cli;
+
+import java.io.PrintStream;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Maven plugin log writing to a console stream, so standard output is left to the result of a command.
+ */
+class ConsoleLog implements Log {
+
+    private final PrintStream out;
+    private final boolean     verbose;
+
+    /**
+     * @param out     stream to write to.
+     * @param verbose true to log info messages, warnings and errors are always logged.
+     */
+    ConsoleLog(PrintStream out, boolean verbose) {
+        this.out = out;
+        this.verbose = verbose;
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return false;
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+    }
+
+    @Override
+    public void debug(Throwable error) {
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return verbose;
+    }
+
+    @Override
+    public void info(CharSequence content) {
+        info(content, null);
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+        if (verbose) {
+            print("[INFO] ", content, error);
+        }
+    }
+
+    @Override
+    public void info(Throwable error) {
+        info(error.getMessage(), error);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return true;
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+        warn(content, null);
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+        print("[WARNING] ", content, error);
+    }
+
+    @Override
+    public void warn(Throwable error) {
+        warn(error.getMessage(), error);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return true;
+    }
+
+    @Override
+    public void error(CharSequence content) {
+        error(content, null);
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+        print("[ERROR] ", content, error);
+    }
+
+    @Override
+    public void error(Throwable error) {
+        error(error.getMessage(), error);
+    }
+
+    private void print(String prefix, CharSequence content, Throwable error) {
+        out.println(prefix + content);
+        if (error != null) {
+            error.printStackTrace(out);
+        }
+    }
+}
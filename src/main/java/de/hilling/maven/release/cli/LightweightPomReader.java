@@ -0,0 +1,358 @@
+package de.hilling.maven.release.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Scm;
+import org.apache.maven.project.MavenProject;
+
+import de.hilling.maven.release.exceptions.ValidationException;
+import de.hilling.maven.release.versioning.ImmutableQualifiedArtifact;
+
+/**
+ * Reads a reactor without maven.
+ * <p>
+ * Only the parts of the poms needed for the change detection are read: coordinates, parent, properties, scm,
+ * dependencies and modules. Expressions referring to the project coordinates or to properties of the pom and its
+ * parents in the reactor are resolved, anything else is taken literally. Profiles, imports and plugins are ignored, so
+ * modules that are only added by profiles are not part of the reactor.
+ * </p>
+ */
+class LightweightPomReader {
+
+    private static final String  POM        = "pom.xml";
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]+)}");
+
+    private final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+
+    /**
+     * @param rootDirectory directory containing the root pom.
+     * @return all projects of the reactor in build order.
+     * @throws ValidationException if a pom cannot be read or the modules depend on each other in a cycle.
+     */
+    List<MavenProject> readReactor(File rootDirectory) {
+        final Map<File, PomContent> poms = new LinkedHashMap<>();
+        collect(new File(rootDirectory, POM), poms);
+        final Map<ImmutableQualifiedArtifact, MavenProject> projectsByArtifact = new LinkedHashMap<>();
+        final Map<File, MavenProject> projectsByPom = new HashMap<>();
+        for (PomContent pom : poms.values()) {
+            final MavenProject project = toProject(pom, poms);
+            projectsByPom.put(pom.file, project);
+            projectsByArtifact.put(artifact(project.getGroupId(), project.getArtifactId()), project);
+        }
+        for (MavenProject project : projectsByArtifact.values()) {
+            final Parent parent = project.getModel().getParent();
+            if (parent != null) {
+                project.setParent(projectsByArtifact.get(artifact(parent.getGroupId(), parent.getArtifactId())));
+            }
+        }
+        final Set<MavenProject> buildOrder = new LinkedHashSet<>();
+        final Set<MavenProject> visiting = new HashSet<>();
+        for (PomContent pom : poms.values()) {
+            addInBuildOrder(projectsByPom.get(pom.file), projectsByArtifact, visiting, buildOrder);
+        }
+        return new ArrayList<>(buildOrder);
+    }
+
+    private void collect(File pom, Map<File, PomContent> poms) {
+        final File canonicalPom = canonical(pom);
+        if (poms.containsKey(canonicalPom)) {
+            return;
+        }
+        final PomContent content = read(canonicalPom);
+        poms.put(canonicalPom, content);
+        for (String module : content.model.getModules()) {
+            final File moduleFile = new File(canonicalPom.getParentFile(), module.trim());
+            collect(moduleFile.isDirectory()
+                    ? new File(moduleFile, POM)
+                    : moduleFile, poms);
+        }
+    }
+
+    private MavenProject toProject(PomContent pom, Map<File, PomContent> poms) {
+        final Model model = pom.model.clone();
+        final PomContent parent = parentInReactor(pom, poms);
+        if (model.getGroupId() == null && model.getParent() != null) {
+            model.setGroupId(model.getParent().getGroupId());
+        }
+        if (model.getVersion() == null && model.getParent() != null) {
+            model.setVersion(model.getParent().getVersion());
+        }
+        final Properties properties = new Properties();
+        inheritProperties(parent, poms, properties);
+        properties.putAll(model.getProperties());
+        properties.setProperty("project.groupId", String.valueOf(model.getGroupId()));
+        properties.setProperty("project.artifactId", String.valueOf(model.getArtifactId()));
+        properties.setProperty("project.version", String.valueOf(model.getVersion()));
+        if (model.getParent() != null) {
+            properties.setProperty("project.parent.groupId", String.valueOf(model.getParent().getGroupId()));
+            properties.setProperty("project.parent.version", String.valueOf(model.getParent().getVersion()));
+        }
+        for (Dependency dependency : model.getDependencies()) {
+            dependency.setGroupId(interpolate(dependency.getGroupId(), properties));
+            dependency.setArtifactId(interpolate(dependency.getArtifactId(), properties));
+            dependency.setVersion(interpolate(dependency.getVersion(), properties));
+        }
+        if (model.getScm() != null) {
+            final Scm scm = model.getScm().clone();
+            scm.setConnection(interpolate(scm.getConnection(), properties));
+            scm.setDeveloperConnection(interpolate(scm.getDeveloperConnection(), properties));
+            model.setScm(scm);
+        }
+        final MavenProject project = new MavenProject(model);
+        project.setOriginalModel(pom.model);
+        project.setFile(pom.file);
+        return project;
+    }
+
+    private void inheritProperties(PomContent pom, Map<File, PomContent> poms, Properties properties) {
+        if (pom == null) {
+            return;
+        }
+        inheritProperties(parentInReactor(pom, poms), poms, properties);
+        properties.putAll(pom.model.getProperties());
+    }
+
+    private static PomContent parentInReactor(PomContent pom, Map<File, PomContent> poms) {
+        final Parent parent = pom.model.getParent();
+        if (parent == null) {
+            return null;
+        }
+        final String relativePath = parent.getRelativePath() == null
+                                    ? "../pom.xml"
+                                    : parent.getRelativePath();
+        File parentFile = new File(pom.file.getParentFile(), relativePath);
+        if (parentFile.isDirectory()) {
+            parentFile = new File(parentFile, POM);
+        }
+        final PomContent candidate = poms.get(canonical(parentFile));
+        if (candidate != null && parent.getArtifactId().equals(candidate.model.getArtifactId())) {
+            return candidate;
+        }
+        return null;
+    }
+
+    private static void addInBuildOrder(MavenProject project,
+                                        Map<ImmutableQualifiedArtifact, MavenProject> projectsByArtifact,
+                                        Set<MavenProject> visiting, Set<MavenProject> buildOrder) {
+        if (buildOrder.contains(project)) {
+            return;
+        }
+        if (!visiting.add(project)) {
+            throw new ValidationException("The projects in the reactor contain a cycle: " + project.getArtifactId());
+        }
+        if (project.getParent() != null) {
+            addInBuildOrder(project.getParent(), projectsByArtifact, visiting, buildOrder);
+        }
+        for (Dependency dependency : project.getModel().getDependencies()) {
+            final MavenProject dependencyProject = projectsByArtifact.get(
+                artifact(dependency.getGroupId(), dependency.getArtifactId()));
+            if (dependencyProject != null && dependencyProject != project) {
+                addInBuildOrder(dependencyProject, projectsByArtifact, visiting, buildOrder);
+            }
+        }
+        visiting.remove(project);
+        buildOrder.add(project);
+    }
+
+    private static String interpolate(String value, Properties properties) {
+        if (value == null || !value.contains("${")) {
+            return value;
+        }
+        String result = value;
+        for (int depth = 0; depth < 10 && result.contains("${"); depth++) {
+            final Matcher matcher = EXPRESSION.matcher(result);
+            final StringBuffer buffer = new StringBuffer();
+            boolean replaced = false;
+            while (matcher.find()) {
+                final String name = matcher.group(1);
+                String replacement = properties.getProperty(name);
+                if (replacement == null && !name.startsWith("project.")) {
+                    replacement = properties.getProperty("project." + name);
+                }
+                replaced |= replacement != null;
+                matcher.appendReplacement(buffer, Matcher.quoteReplacement(replacement == null
+                                                                           ? matcher.group()
+                                                                           : replacement));
+            }
+            matcher.appendTail(buffer);
+            result = buffer.toString();
+            if (!replaced) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private PomContent read(File pom) {
+        try (InputStream in = Files.newInputStream(pom.toPath())) {
+            final XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(in);
+            try {
+                return new PomContent(pom, parse(reader));
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            throw new ValidationException("Unable to read " + pom + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Model parse(XMLStreamReader reader) throws XMLStreamException {
+        final Model model = new Model();
+        final List<String> path = new ArrayList<>();
+        Parent parent = null;
+        Dependency dependency = null;
+        Scm scm = null;
+        final StringBuilder text = new StringBuilder();
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                path.add(reader.getLocalName());
+                text.setLength(0);
+                if (matches(path, "project", "parent")) {
+                    parent = new Parent();
+                    parent.setRelativePath(null);
+                } else if (matches(path, "project", "dependencies", "dependency")) {
+                    dependency = new Dependency();
+                } else if (matches(path, "project", "scm")) {
+                    scm = new Scm();
+                }
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                text.append(reader.getText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                final String value = text.toString().trim();
+                if (matches(path, "project", "groupId")) {
+                    model.setGroupId(value);
+                } else if (matches(path, "project", "artifactId")) {
+                    model.setArtifactId(value);
+                } else if (matches(path, "project", "version")) {
+                    model.setVersion(value);
+                } else if (matches(path, "project", "packaging")) {
+                    model.setPackaging(value);
+                } else if (matches(path, "project", "modules", "module")) {
+                    model.addModule(value);
+                } else if (path.size() == 3 && matches(path.subList(0, 2), "project", "properties")) {
+                    model.addProperty(path.get(2), value);
+                } else if (parent != null && path.size() == 3 && matches(path.subList(0, 2), "project", "parent")) {
+                    setParentElement(parent, path.get(2), value);
+                } else if (matches(path, "project", "parent")) {
+                    model.setParent(parent);
+                    parent = null;
+                } else if (dependency != null && path.size() == 4 && matches(path.subList(0, 3), "project",
+                                                                              "dependencies", "dependency")) {
+                    setDependencyElement(dependency, path.get(3), value);
+                } else if (matches(path, "project", "dependencies", "dependency")) {
+                    model.addDependency(dependency);
+                    dependency = null;
+                } else if (matches(path, "project", "scm", "connection")) {
+                    scm.setConnection(value);
+                } else if (matches(path, "project", "scm", "developerConnection")) {
+                    scm.setDeveloperConnection(value);
+                } else if (matches(path, "project", "scm")) {
+                    model.setScm(scm);
+                    scm = null;
+                }
+                path.remove(path.size() - 1);
+                text.setLength(0);
+            }
+        }
+        return model;
+    }
+
+    private static void setParentElement(Parent parent, String element, String value) {
+        switch (element) {
+            case "groupId":
+                parent.setGroupId(value);
+                break;
+            case "artifactId":
+                parent.setArtifactId(value);
+                break;
+            case "version":
+                parent.setVersion(value);
+                break;
+            case "relativePath":
+                parent.setRelativePath(value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void setDependencyElement(Dependency dependency, String element, String value) {
+        switch (element) {
+            case "groupId":
+                dependency.setGroupId(value);
+                break;
+            case "artifactId":
+                dependency.setArtifactId(value);
+                break;
+            case "version":
+                dependency.setVersion(value);
+                break;
+            case "scope":
+                dependency.setScope(value);
+                break;
+            case "type":
+                dependency.setType(value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static boolean matches(List<String> path, String... expected) {
+        if (path.size() != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (!expected[i].equals(path.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static File canonical(File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+
+    private static ImmutableQualifiedArtifact artifact(String groupId, String artifactId) {
+        return ImmutableQualifiedArtifact.builder().groupId(String.valueOf(groupId)).artifactId(
+            String.valueOf(artifactId)).build();
+    }
+
+    private static final class PomContent {
+        private final File  file;
+        private final Model model;
+
+        private PomContent(File file, Model model) {
+            this.file = file;
+            this.model = model;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package de.hilling.maven.release.cli;
+
+import static de.hilling.maven.release.utils.GitHelper.getRemoteUrlOrNullIfNoneSet;
+import static java.util.stream.Collectors.joining;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+
+import de.hilling.maven.release.ChangeDetection;
+import de.hilling.maven.release.NoChangesAction;
+import de.hilling.maven.release.Reactor;
+import de.hilling.maven.release.ReleasableModule;
+import de.hilling.maven.release.exceptions.ValidationException;
+import de.hilling.maven.release.metrics.ReleaseMetrics;
+import de.hilling.maven.release.releaseinfo.ReleaseInfoStorage;
+import de.hilling.maven.release.repository.LocalGitRepo;
+import de.hilling.maven.release.utils.Constants;
+import de.hilling.maven.release.utils.ReleaseFileUtils;
+import de.hilling.maven.release.utils.SshAgentSessionFactory;
+import de.hilling.maven.release.versioning.ReleaseInfo;
+
+/**
+ * Computes the modules of the next release without starting maven, for hooks and bots that need a quick answer.
+ * <p>
+ * The reactor is read by {@link LightweightPomReader}, the change detection is the same as for the {@code next} goal.
+ * One line per module is printed to standard output: whether it is released, its artifactId, its version and its
+ * path. With {@code --write}, the modules to release are stored in {@code modules-to-build.txt} as {@code prepare}
+ * does. The parameters use the names of the plugin parameters, see {@link #USAGE}.
+ * </p>
+ * <p>
+ * Run it with the plugin and its dependencies on the classpath:
+ * {@code java -cp 'smart-release-plugin.jar:lib/*' de.hilling.maven.release.cli.NextCommand}.
+ * </p>
+ */
+public final class NextCommand {
+
+    static final int SUCCESS = 0;
+    static final int FAILURE = 1;
+    static final int USAGE_ERROR = 2;
+
+    static final String USAGE = String.join(System.lineSeparator(),
+                                            "usage: NextCommand [options]",
+                                            "  --directory=<dir>               root of the project, defaults to .",
+                                            "  --forceRelease=<a,b>            artifactIds to release in any case",
+                                            "  --noChangesAction=<action>      ReleaseAll, ReleaseNone or FailBuild",
+                                            "  --bugfixRelease                 compute a bugfix release",
+                                            "  --changeDetection=<mode>        History or Tree",
+                                            "  --changeDetectionThreads=<n>    threads used to detect changes",
+                                            "  --remoteTagsTtl=<seconds>       lifetime of the remote tag snapshot",
+                                            "  --localTagsFirst                prefer local tags",
+                                            "  --offline                       never contact the remote repository",
+                                            "  --write                         write " + Constants.MODULE_BUILD_FILE,
+                                            "  --verbose                       log the change detection");
+
+    private File            directory              = new File(".");
+    private List<String>    modulesToForceRelease  = new ArrayList<>();
+    private NoChangesAction noChangesAction        = NoChangesAction.valueOf(Constants.DEFAULT_NO_CHANGES_ACTION);
+    private boolean         bugfixRelease          = Boolean.parseBoolean(Constants.DEFAULT_BUGFIX_RELEASE);
+    private ChangeDetection changeDetection        = ChangeDetection.valueOf(Constants.DEFAULT_CHANGE_DETECTION);
+    private int             changeDetectionThreads = Integer.parseInt(Constants.DEFAULT_CHANGE_DETECTION_THREADS);
+    private int             remoteTagsTtl          = Integer.parseInt(Constants.DEFAULT_REMOTE_TAGS_TTL);
+    private boolean         localTagsFirst         = Boolean.parseBoolean(Constants.DEFAULT_LOCAL_TAGS_FIRST);
+    private boolean         offline                = Boolean.parseBoolean(Constants.DEFAULT_OFFLINE);
+    private boolean         write;
+    private boolean         verbose;
+
+    private NextCommand() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * @param args command line arguments.
+     * @param out  stream for the plan.
+     * @param err  stream for log messages.
+     * @return exit code.
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        final NextCommand command = new NextCommand();
+        try {
+            for (String arg : args) {
+                command.parse(arg);
+            }
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return USAGE_ERROR;
+        }
+        final Log log = new ConsoleLog(err, command.verbose);
+        try {
+            return command.execute(out, log);
+        } catch (ValidationException e) {
+            log.error(e.getMessage());
+            e.getMessages().forEach(log::error);
+            return FAILURE;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return FAILURE;
+        }
+    }
+
+    private int execute(PrintStream out, Log log) throws Exception {
+        final List<MavenProject> projects = new LightweightPomReader().readReactor(directory);
+        final File rootDirectory = directory.getCanonicalFile();
+        final MavenProject rootProject = projects.stream().filter(
+            project -> project.getBasedir().equals(rootDirectory)).findFirst().orElseThrow(
+            () -> new ValidationException("no pom.xml found in " + directory));
+        if (!offline) {
+            SshAgentSessionFactory.install(log, null, null, null, null, null);
+        }
+        final LocalGitRepo repo = LocalGitRepo.fromDirectory(directory, getRemoteUrlOrNullIfNoneSet(
+            rootProject.getOriginalModel().getScm(), rootProject.getModel().getScm()), log);
+        repo.setRemoteTagsTtl(remoteTagsTtl);
+        repo.setLocalTagsFirst(localTagsFirst);
+        repo.setOffline(offline);
+        final ReleaseInfo previousRelease = new ReleaseInfoStorage(rootProject.getBasedir(), repo.git).load();
+        final Reactor reactor = Reactor.fromProjects(log, repo, rootProject, projects, modulesToForceRelease,
+                                                     noChangesAction, bugfixRelease, changeDetection,
+                                                     changeDetectionThreads, previousRelease,
+                                                     ReleaseMetrics.disabled());
+        if (reactor == null) {
+            return SUCCESS;
+        }
+        for (ReleasableModule module : reactor.getModulesInBuildOrder()) {
+            out.println((module.isToBeReleased()
+                         ? "release "
+                         : "keep    ") + module.getProject().getArtifactId() + " " + module.getImmutableModule()
+                                                                                         .getVersion() + " "
+                        + module.getRelativePathToModule());
+        }
+        if (write) {
+            ReleaseFileUtils.write(new File(directory, Constants.MODULE_BUILD_FILE).getPath(),
+                                   reactor.getModulesInBuildOrder().stream()
+                                          .filter(ReleasableModule::isToBeReleased)
+                                          .map(ReleasableModule::getRelativePathToModule).collect(joining(",")));
+        }
+        return SUCCESS;
+    }
+
+    private void parse(String arg) {
+        final int separator = arg.indexOf('=');
+        final String name = separator < 0
+                            ? arg
+                            : arg.substring(0, separator);
+        final String value = separator < 0
+                             ? null
+                             : arg.substring(separator + 1);
+        try {
+            switch (name) {
+                case "--directory":
+                    directory = new File(required(name, value));
+                    break;
+                case "--forceRelease":
+                    Arrays.stream(required(name, value).split(",")).map(String::trim)
+                          .filter(module -> !module.isEmpty()).forEach(modulesToForceRelease::add);
+                    break;
+                case "--noChangesAction":
+                    noChangesAction = NoChangesAction.valueOf(required(name, value));
+                    break;
+                case "--bugfixRelease":
+                    bugfixRelease = flag(value);
+                    break;
+                case "--changeDetection":
+                    changeDetection = ChangeDetection.valueOf(required(name, value));
+                    break;
+                case "--changeDetectionThreads":
+                    changeDetectionThreads = Integer.parseInt(required(name, value));
+                    break;
+                case "--remoteTagsTtl":
+                    remoteTagsTtl = Integer.parseInt(required(name, value));
+                    break;
+                case "--localTagsFirst":
+                    localTagsFirst = flag(value);
+                    break;
+                case "--offline":
+                    offline = flag(value);
+                    break;
+                case "--write":
+                    write = flag(value);
+                    break;
+                case "--verbose":
+                    verbose = flag(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + arg);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid number in " + arg);
+        }
+    }
+
+    private static String required(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("missing value for " + name);
+        }
+        return value;
+    }
+
+    private static boolean flag(String value) {
+        return value == null || Boolean.parseBoolean(value);
+    }
+}
@@ -0,0 +1,202 @@
+package de.hilling.maven.release.metrics;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Custom Java Flight Recorder events of the plugin.
+ * <p>
+ * The event types are created with {@code jdk.jfr.EventFactory}, all of {@code jdk.jfr} is accessed by reflection
+ * only, so the plugin still runs on Java 8 without flight recorder. If flight recorder is not available or an event is
+ * not enabled in the running recording, {@link #begin()} returns a span that does nothing.
+ * </p>
+ */
+public final class FlightRecorderEvent {
+
+    public static final FlightRecorderEvent MODULE_EVALUATED = new FlightRecorderEvent(
+        "ModuleEvaluated", "Module Evaluated", field(String.class, "artifactId"), field(boolean.class, "released"),
+        field(String.class, "reason"));
+
+    public static final FlightRecorderEvent TREE_WALK = new FlightRecorderEvent(
+        "TreeWalk", "Tree Walk", field(String.class, "mode"), field(String.class, "since"),
+        field(long.class, "commitsVisited"), field(long.class, "pathsVisited"), field(int.class, "changedModules"));
+
+    public static final FlightRecorderEvent REMOTE_REF_LISTING = new FlightRecorderEvent(
+        "RemoteRefListing", "Remote Ref Listing", field(String.class, "remote"), field(int.class, "refs"));
+
+    public static final FlightRecorderEvent POM_WRITTEN = new FlightRecorderEvent(
+        "PomWritten", "Pom Written", field(String.class, "path"), field(long.class, "bytes"));
+
+    public static final FlightRecorderEvent RELEASE_INFO_STORED = new FlightRecorderEvent(
+        "ReleaseInfoStored", "Release Info Stored", field(String.class, "path"), field(int.class, "modules"));
+
+    private static final String NAME_PREFIX = "de.hilling.maven.release.";
+    private static final String CATEGORY    = "Smart Release Plugin";
+    private static final Span   NO_SPAN     = new Span(null);
+
+    private final Object factory;
+
+    private FlightRecorderEvent(String name, String label, Field... fields) {
+        this.factory = Jfr.createFactory(NAME_PREFIX + name, label, fields);
+    }
+
+    /**
+     * Start an event, its duration ends when the span is committed.
+     *
+     * @return running event, does nothing if the event is not recorded.
+     */
+    public Span begin() {
+        if (factory == null) {
+            return NO_SPAN;
+        }
+        final Object event = Jfr.begin(factory);
+        return event == null
+               ? NO_SPAN
+               : new Span(event);
+    }
+
+    private static Field field(Class<?> type, String name) {
+        return new Field(type, name);
+    }
+
+    /**
+     * A running event.
+     */
+    public static final class Span {
+        private final Object event;
+
+        private Span(Object event) {
+            this.event = event;
+        }
+
+        /**
+         * End the event and commit it to the recording.
+         *
+         * @param values values of the fields, in the order of their definition.
+         */
+        public void commit(Object... values) {
+            if (event != null) {
+                Jfr.commit(event, values);
+            }
+        }
+    }
+
+    private static final class Field {
+        private final Class<?> type;
+        private final String   name;
+
+        private Field(Class<?> type, String name) {
+            this.type = type;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Reflective access to {@code jdk.jfr}. Any failure disables all events.
+     */
+    private static final class Jfr {
+        private static volatile boolean available;
+
+        private static Constructor<?> annotationElement;
+        private static Constructor<?> valueDescriptor;
+        private static Method         create;
+        private static Class<?>       nameAnnotation;
+        private static Class<?>       labelAnnotation;
+        private static Class<?>       categoryAnnotation;
+        private static Class<?>       stackTraceAnnotation;
+        private static Method         newEvent;
+        private static Method         isEnabled;
+        private static Method         beginEvent;
+        private static Method         endEvent;
+        private static Method         shouldCommit;
+        private static Method         commitEvent;
+        private static Method         set;
+
+        static {
+            try {
+                final Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+                final Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+                final Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+                final Class<?> eventClass = Class.forName("jdk.jfr.Event");
+                annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+                valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class);
+                create = eventFactoryClass.getMethod("create", List.class, List.class);
+                nameAnnotation = Class.forName("jdk.jfr.Name");
+                labelAnnotation = Class.forName("jdk.jfr.Label");
+                categoryAnnotation = Class.forName("jdk.jfr.Category");
+                stackTraceAnnotation = Class.forName("jdk.jfr.StackTrace");
+                newEvent = eventFactoryClass.getMethod("newEvent");
+                isEnabled = eventClass.getMethod("isEnabled");
+                beginEvent = eventClass.getMethod("begin");
+                endEvent = eventClass.getMethod("end");
+                shouldCommit = eventClass.getMethod("shouldCommit");
+                commitEvent = eventClass.getMethod("commit");
+                set = eventClass.getMethod("set", int.class, Object.class);
+                available = true;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                available = false;
+            }
+        }
+
+        private Jfr() {
+        }
+
+        static Object createFactory(String name, String label, Field[] fields) {
+            if (!available) {
+                return null;
+            }
+            try {
+                final List<Object> annotations = Arrays.asList(
+                    annotationElement.newInstance(nameAnnotation, name),
+                    annotationElement.newInstance(labelAnnotation, label),
+                    annotationElement.newInstance(categoryAnnotation, new String[]{CATEGORY}),
+                    annotationElement.newInstance(stackTraceAnnotation, false));
+                final List<Object> descriptors = new ArrayList<>();
+                for (Field field : fields) {
+                    descriptors.add(valueDescriptor.newInstance(field.type, field.name));
+                }
+                return create.invoke(null, annotations, descriptors);
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+                available = false;
+                return null;
+            }
+        }
+
+        static Object begin(Object factory) {
+            if (!available) {
+                return null;
+            }
+            try {
+                final Object event = newEvent.invoke(factory);
+                if (!(Boolean) isEnabled.invoke(event)) {
+                    return null;
+                }
+                beginEvent.invoke(event);
+                return event;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                available = false;
+                return null;
+            }
+        }
+
+        static void commit(Object event, Object[] values) {
+            if (!available) {
+                return;
+            }
+            try {
+                endEvent.invoke(event);
+                if ((Boolean) shouldCommit.invoke(event)) {
+                    for (int i = 0; i < values.length; i++) {
+                        set.invoke(event, i, values[i]);
+                    }
+                    commitEvent.invoke(event);
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                available = false;
+            }
+        }
+    }
+}
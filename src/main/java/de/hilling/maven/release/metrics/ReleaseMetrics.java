@@ -0,0 +1,222 @@
+package de.hilling.maven.release.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.hilling.maven.release.versioning.GsonFactory;
+
+/**
+ * Timings and counters of a single run of a goal.
+ * <p>
+ * Phases are timed with {@link #phase}, the time of phases running several times or concurrently is summed up. At the
+ * end of the run, {@link #writeTo} stores everything as json and in the text format of the prometheus node exporter's
+ * textfile collector. All methods are thread safe, a disabled instance records nothing.
+ * </p>
+ */
+public class ReleaseMetrics {
+
+    public static final String COMMITS_WALKED      = "commits_walked";
+    public static final String HISTORY_WALKS       = "history_walks";
+    public static final String TREE_COMPARISONS    = "tree_comparisons";
+    public static final String REMOTE_TAG_LISTINGS = "remote_tag_listings";
+    public static final String MODULES             = "modules";
+    public static final String MODULES_RELEASED    = "modules_released";
+
+    private static final String PREFIX = "smart_release_";
+
+    private final String                       goal;
+    private final boolean                      enabled;
+    private final long                         startMillis = System.currentTimeMillis();
+    private final Map<String, LongAdder>       phaseNanos  = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder>       phaseCalls  = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder>       counters    = new ConcurrentHashMap<>();
+    private final Map<String, ModuleTiming>    modules     = new ConcurrentHashMap<>();
+
+    /**
+     * @param goal name of the goal, used as label of all metrics.
+     */
+    public ReleaseMetrics(String goal) {
+        this(goal, true);
+    }
+
+    private ReleaseMetrics(String goal, boolean enabled) {
+        this.goal = goal;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return metrics that record nothing.
+     */
+    public static ReleaseMetrics disabled() {
+        return new ReleaseMetrics("disabled", false);
+    }
+
+    /**
+     * Start timing a phase, the time is recorded when the phase is closed.
+     *
+     * @param name name of the phase.
+     * @return running phase, to be used with try-with-resources.
+     */
+    public Phase phase(String name) {
+        return new Phase(name, System.nanoTime());
+    }
+
+    /**
+     * @param name   name of the counter.
+     * @param amount amount to add.
+     */
+    public void count(String name, long amount) {
+        if (enabled) {
+            counters.computeIfAbsent(name, key -> new LongAdder()).add(amount);
+        }
+    }
+
+    /**
+     * @param artifactId module that has been checked for changes.
+     * @param nanos      time spent to decide whether the module is released.
+     * @param released   true if the module is released.
+     */
+    public void recordModule(String artifactId, long nanos, boolean released) {
+        if (enabled) {
+            modules.put(artifactId, new ModuleTiming(nanos, released));
+        }
+    }
+
+    /**
+     * Write {@code smart-release-<goal>.json} and {@code smart-release-<goal>.prom} to the given directory. The files
+     * are replaced atomically, so collectors never read partial files.
+     *
+     * @param directory directory to write to, created if necessary.
+     * @throws IOException if the files cannot be written.
+     */
+    public void writeTo(File directory) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory.toPath());
+        write(new File(directory, "smart-release-" + goal + ".json"), toJson());
+        write(new File(directory, "smart-release-" + goal + ".prom"), toPrometheus());
+    }
+
+    String toJson() {
+        final Map<String, Object> json = new LinkedHashMap<>();
+        json.put("goal", goal);
+        json.put("startTime", startMillis);
+        final Map<String, Object> phases = new LinkedHashMap<>();
+        for (Map.Entry<String, LongAdder> phase : sorted(phaseNanos).entrySet()) {
+            final Map<String, Object> values = new LinkedHashMap<>();
+            values.put("seconds", seconds(phase.getValue().sum()));
+            values.put("calls", phaseCalls.get(phase.getKey()).sum());
+            phases.put(phase.getKey(), values);
+        }
+        json.put("phases", phases);
+        final Map<String, Object> moduleValues = new LinkedHashMap<>();
+        for (Map.Entry<String, ModuleTiming> module : new TreeMap<>(modules).entrySet()) {
+            final Map<String, Object> values = new LinkedHashMap<>();
+            values.put("seconds", seconds(module.getValue().nanos));
+            values.put("released", module.getValue().released);
+            moduleValues.put(module.getKey(), values);
+        }
+        json.put("modules", moduleValues);
+        final Map<String, Object> counterValues = new LinkedHashMap<>();
+        sorted(counters).forEach((name, value) -> counterValues.put(name, value.sum()));
+        json.put("counters", counterValues);
+        return new GsonFactory().createGson().toJson(json);
+    }
+
+    String toPrometheus() {
+        final StringBuilder text = new StringBuilder();
+        header(text, "phase_seconds", "Time spent in a phase of the goal.");
+        sorted(phaseNanos).forEach(
+            (name, nanos) -> sample(text, "phase_seconds", "phase", name, seconds(nanos.sum())));
+        header(text, "phase_calls", "Number of times a phase has been run.");
+        sorted(phaseCalls).forEach((name, calls) -> sample(text, "phase_calls", "phase", name, calls.sum()));
+        header(text, "module_seconds", "Time spent to decide whether a module is released.");
+        new TreeMap<>(modules).forEach(
+            (artifactId, timing) -> sample(text, "module_seconds", "module", artifactId, seconds(timing.nanos)));
+        for (Map.Entry<String, LongAdder> counter : sorted(counters).entrySet()) {
+            header(text, counter.getKey(), "Counter " + counter.getKey() + " of the goal.");
+            sample(text, counter.getKey(), null, null, counter.getValue().sum());
+        }
+        header(text, "last_run_timestamp_seconds", "Start of the run.");
+        sample(text, "last_run_timestamp_seconds", null, null, startMillis / 1000.0);
+        return text.toString();
+    }
+
+    private static void header(StringBuilder text, String name, String help) {
+        text.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(PREFIX).append(name).append(" gauge\n");
+    }
+
+    private void sample(StringBuilder text, String name, String label, String labelValue, Number value) {
+        text.append(PREFIX).append(name).append("{goal=\"").append(escape(goal)).append('"');
+        if (label != null) {
+            text.append(',').append(label).append("=\"").append(escape(labelValue)).append('"');
+        }
+        text.append("} ").append(value).append('\n');
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static <T> Map<String, T> sorted(Map<String, T> values) {
+        return new TreeMap<>(values);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        final File temporary = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        try {
+            Files.write(temporary.toPath(), content.getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    /**
+     * A running phase, used as resource of a try statement that does not reference it. javac reports the {@code try}
+     * lint for that at each such statement, so the methods containing them suppress it.
+     */
+    public final class Phase implements AutoCloseable {
+        private final String name;
+        private final long   startNanos;
+
+        private Phase(String name, long startNanos) {
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void close() {
+            if (enabled) {
+                phaseNanos.computeIfAbsent(name, key -> new LongAdder()).add(System.nanoTime() - startNanos);
+                phaseCalls.computeIfAbsent(name, key -> new LongAdder()).increment();
+            }
+        }
+    }
+
+    private static final class ModuleTiming {
+        private final long    nanos;
+        private final boolean released;
+
+        private ModuleTiming(long nanos, boolean released) {
+            this.nanos = nanos;
+            this.released = released;
+        }
+    }
+}
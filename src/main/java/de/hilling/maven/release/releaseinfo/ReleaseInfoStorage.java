@@ -8,9 +8,17 @@ import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 
 import com.google.gson.Gson;
 
+import de.hilling.maven.release.metrics.FlightRecorderEvent;
 import de.hilling.maven.release.versioning.GsonFactory;
 import de.hilling.maven.release.versioning.ImmutableReleaseInfo;
 import de.hilling.maven.release.versioning.ReleaseInfo;
@@ -47,13 +55,59 @@ public class ReleaseInfoStorage {
         return previousRelease;
     }
 
-    public void store(ImmutableReleaseInfo releaseInfo) {
+    /**
+     * @return true if HEAD is a commit of {@link #store}, changing nothing but the release info.
+     *
+     * @throws IOException if the commits cannot be read.
+     */
+    public boolean isStoredAtHead() throws IOException {
+        final Repository repository = git.getRepository();
+        final ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) {
+            return false;
+        }
+        try (RevWalk revWalk = new RevWalk(repository); TreeWalk walk = new TreeWalk(repository)) {
+            final RevCommit commit = revWalk.parseCommit(head);
+            if (commit.getParentCount() != 1) {
+                return false;
+            }
+            walk.addTree(revWalk.parseCommit(commit.getParent(0)).getTree());
+            walk.addTree(commit.getTree());
+            walk.setFilter(TreeFilter.ANY_DIFF);
+            walk.setRecursive(true);
+            boolean changed = false;
+            while (walk.next()) {
+                if (!RELEASE_INFO_FILE.equals(walk.getPathString())) {
+                    return false;
+                }
+                changed = true;
+            }
+            return changed;
+        }
+    }
+
+    /**
+     * Write and commit the release info.
+     *
+     * @param releaseInfo release info to store.
+     *
+     * @return id of the committed blob, release tags refer to it.
+     */
+    public ObjectId store(ImmutableReleaseInfo releaseInfo) {
         final File releaseInfoFile = new File(baseDir, RELEASE_INFO_FILE);
+        final FlightRecorderEvent.Span event = FlightRecorderEvent.RELEASE_INFO_STORED.begin();
         try {
             final Gson gson = new GsonFactory().createGson();
             FileUtils.write(releaseInfoFile, gson.toJson(releaseInfo), StandardCharsets.UTF_8);
             git.add().addFilepattern(RELEASE_INFO_FILE).call();
-            git.commit().setMessage("updating release versions").call();
+            final RevCommit commit = git.commit().setMessage("updating release versions").call();
+            event.commit(releaseInfoFile.getPath(), releaseInfo.getModules().size());
+            try (TreeWalk walk = TreeWalk.forPath(git.getRepository(), RELEASE_INFO_FILE, commit.getTree())) {
+                if (walk == null) {
+                    throw new IOException(RELEASE_INFO_FILE + " missing in commit " + commit.name());
+                }
+                return walk.getObjectId(0);
+            }
         } catch (IOException | GitAPIException e) {
             throw new RuntimeException("unable to store and commit release info", e);
         }
@@ -0,0 +1,132 @@
+package de.hilling.maven.release.releaseinfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import de.hilling.maven.release.versioning.GsonFactory;
+import de.hilling.maven.release.versioning.ImmutableReleasePlan;
+import de.hilling.maven.release.versioning.ModuleVersion;
+import de.hilling.maven.release.versioning.PlannedModule;
+import de.hilling.maven.release.versioning.ReleasePlan;
+
+/**
+ * Loading and storing of the release plan in the git directory.
+ * <p>
+ * The plan is written by the {@code next} goal and only used by {@code prepare} if it has been computed for the same
+ * commit and inputs. Failures are logged only, the plan can always be computed again.
+ * </p>
+ */
+public class ReleasePlanStorage {
+    static final String PLAN_DIRECTORY = "smart-release";
+    static final String PLAN_FILE      = "release-plan.json";
+
+    private final File planFile;
+    private final Log  log;
+    private final Gson gson = new GsonFactory().createGson();
+
+    /**
+     * @param gitDirectory directory of the git repository, usually {@code .git}.
+     * @param log          logger.
+     */
+    public ReleasePlanStorage(File gitDirectory, Log log) {
+        this.planFile = new File(new File(gitDirectory, PLAN_DIRECTORY), PLAN_FILE);
+        this.log = log;
+    }
+
+    /**
+     * @param headCommit        id of the current HEAD.
+     * @param inputsFingerprint fingerprint of the current projects and parameters.
+     * @return the stored plan if it matches the given commit and inputs.
+     */
+    public Optional<ReleasePlan> load(String headCommit, String inputsFingerprint) {
+        if (!planFile.isFile()) {
+            return Optional.empty();
+        }
+        try {
+            final String json = new String(Files.readAllBytes(planFile.toPath()), StandardCharsets.UTF_8);
+            final ReleasePlan plan = gson.fromJson(json, ImmutableReleasePlan.class);
+            final Optional<String> missing = missingField(plan);
+            if (missing.isPresent()) {
+                log.warn("ignoring incomplete release plan " + planFile + ", " + missing.get() + " is missing");
+                return Optional.empty();
+            }
+            if (!plan.getHeadCommit().equals(headCommit)) {
+                log.debug("release plan is outdated, it has been computed for " + plan.getHeadCommit());
+                return Optional.empty();
+            }
+            if (!plan.getInputsFingerprint().equals(inputsFingerprint)) {
+                log.debug("release plan has been computed for different projects or parameters");
+                return Optional.empty();
+            }
+            return Optional.of(plan);
+        } catch (IOException | JsonParseException e) {
+            log.warn("unable to read release plan " + planFile + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * gson creates the value classes without their builders, so required fields missing in the file are null.
+     */
+    private static Optional<String> missingField(ReleasePlan plan) {
+        if (plan == null) {
+            return Optional.of("the plan");
+        }
+        if (plan.getHeadCommit() == null) {
+            return Optional.of("headCommit");
+        }
+        if (plan.getInputsFingerprint() == null) {
+            return Optional.of("inputsFingerprint");
+        }
+        if (plan.getModules() == null) {
+            return Optional.of("modules");
+        }
+        for (PlannedModule module : plan.getModules()) {
+            if (module == null || module.getRelativePathToModule() == null) {
+                return Optional.of("relativePathToModule");
+            }
+            final ModuleVersion version = module.getModuleVersion();
+            if (version == null || version.getArtifact() == null || version.getVersion() == null
+                || version.getReleaseTag() == null || version.getReleaseDate() == null) {
+                return Optional.of("moduleVersion of " + module.getRelativePathToModule());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param plan plan to store, replacing the previous one.
+     */
+    public void store(ReleasePlan plan) {
+        try {
+            Files.createDirectories(planFile.getParentFile().toPath());
+            final File tempFile = File.createTempFile(PLAN_FILE, ".tmp", planFile.getParentFile());
+            Files.write(tempFile.toPath(), gson.toJson(plan).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile.toPath(), planFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+            log.info("stored release plan in " + planFile);
+        } catch (IOException e) {
+            log.warn("unable to write release plan " + planFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remove the stored plan, if any.
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(planFile.toPath());
+        } catch (IOException e) {
+            log.warn("unable to delete release plan " + planFile + ": " + e.getMessage());
+        }
+    }
+}
@@ -2,26 +2,39 @@ package de.hilling.maven.release.repository;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.api.CheckoutCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.LsRemoteCommand;
 import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.StatusCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.RefNotFoundException;
 import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.URIish;
 
 import de.hilling.maven.release.AnnotatedTag;
 import de.hilling.maven.release.exceptions.ValidationException;
+import de.hilling.maven.release.metrics.FlightRecorderEvent;
+import de.hilling.maven.release.metrics.ReleaseMetrics;
 import de.hilling.maven.release.utils.ReleaseFileUtils;
 
 public class LocalGitRepo {
@@ -30,7 +43,12 @@ public class LocalGitRepo {
     private final String remoteUrl;
     private final Log    log;
     private boolean hasReverted = false; // A premature optimisation? In the normal case, file reverting occurs twice, which this bool prevents
-    private Collection<Ref> remoteTags;
+    private Map<String, Ref> remoteTags;
+    private boolean remoteTagsFromSnapshot = false;
+    private int remoteTagsTtl = 0;
+    private boolean localTagsFirst = false;
+    private boolean offline = false;
+    private ReleaseMetrics metrics = ReleaseMetrics.disabled();
 
     LocalGitRepo(Git git, String remoteUrl, Log log) {
         this.git = git;
@@ -49,8 +67,20 @@ public class LocalGitRepo {
      * @throws ValidationException if anything goes wrong
      */
     public static LocalGitRepo fromCurrentDir(String remoteUrl, Log log) throws ValidationException {
+        return fromDirectory(new File("."), remoteUrl, log);
+    }
+
+    /**
+     * Uses the Git repository in the given directory.
+     *
+     * @param gitDir    root directory of the working tree.
+     * @param remoteUrl The remote url
+     * @param log       maven logger
+     * @return a new instance of LocalGitRepo
+     * @throws ValidationException if anything goes wrong
+     */
+    public static LocalGitRepo fromDirectory(File gitDir, String remoteUrl, Log log) throws ValidationException {
         Git git;
-        File gitDir = new File(".");
         try {
             git = Git.open(gitDir);
         } catch (RepositoryNotFoundException rnfe) {
@@ -88,7 +118,30 @@ public class LocalGitRepo {
     }
 
     public void errorIfNotClean() throws ValidationException {
-        Status status = currentStatus();
+        errorIfNotClean(Collections.emptyList());
+    }
+
+    /**
+     * Fail if the working tree has uncommitted changes or untracked files. A fast check stopping at the first change is
+     * done first, the full status is only computed to report the changes.
+     *
+     * @param files files and directories to check, empty to check the whole working tree.
+     * @throws ValidationException if the working tree is not clean.
+     */
+    public void errorIfNotClean(Collection<File> files) throws ValidationException {
+        final List<String> paths = new ArrayList<>();
+        try {
+            final File workTree = workingDir();
+            for (File file : files) {
+                paths.add(Repository.stripWorkDir(workTree, file.getCanonicalFile()));
+            }
+            if (!WorkingTreeCheck.firstDirtyPath(git.getRepository(), paths).isPresent()) {
+                return;
+            }
+        } catch (IOException | MojoExecutionException e) {
+            throw new ValidationException("Error while checking if the Git repo is clean", e);
+        }
+        Status status = currentStatus(paths);
         boolean isClean = status.isClean();
         if (!isClean) {
             String summary = "Cannot release with uncommitted changes. Please check the following files:";
@@ -113,9 +166,13 @@ public class LocalGitRepo {
         }
     }
 
-    private Status currentStatus() throws ValidationException {
+    private Status currentStatus(List<String> paths) throws ValidationException {
         try {
-            return git.status().call();
+            StatusCommand status = git.status();
+            if (!paths.contains("")) {
+                paths.forEach(status::addPath);
+            }
+            return status.call();
         } catch (GitAPIException e) {
             throw new ValidationException("Error while checking if the Git repo is clean", e);
         }
@@ -127,18 +184,46 @@ public class LocalGitRepo {
         }
         boolean hasErrors = false;
         File workTree = workingDir();
+        Map<String, File> filesByPath = new LinkedHashMap<>();
         for (File changedFile : changedFiles) {
+            filesByPath.put(Repository.stripWorkDir(workTree, changedFile), changedFile);
+        }
+        if (!filesByPath.isEmpty()) {
+            Set<String> untracked;
             try {
-                String pathRelativeToWorkingTree = Repository.stripWorkDir(workTree, changedFile);
-                if(git.status().addPath(pathRelativeToWorkingTree).call().getUntracked().isEmpty()) {
-                    git.checkout().addPath(pathRelativeToWorkingTree).call();
+                StatusCommand status = git.status();
+                filesByPath.keySet().forEach(status::addPath);
+                untracked = status.call().getUntracked();
+            } catch (Exception e) {
+                log.error("Unable to revert changes to " + changedFiles
+                          + " - you may need to manually revert these files. Error was: " + e.getMessage());
+                hasReverted = true;
+                return false;
+            }
+            List<String> tracked = new ArrayList<>();
+            for (Map.Entry<String, File> entry : filesByPath.entrySet()) {
+                if (untracked.contains(entry.getKey())) {
+                    try {
+                        FileUtils.forceDelete(entry.getValue());
+                    } catch (IOException e) {
+                        hasErrors = true;
+                        log.error("Unable to revert changes to " + entry.getValue()
+                                  + " - you may need to manually revert this file. Error was: " + e.getMessage());
+                    }
                 } else {
-                    FileUtils.forceDelete(changedFile);
+                    tracked.add(entry.getKey());
+                }
+            }
+            if (!tracked.isEmpty()) {
+                try {
+                    CheckoutCommand checkout = git.checkout();
+                    tracked.forEach(checkout::addPath);
+                    checkout.call();
+                } catch (Exception e) {
+                    hasErrors = true;
+                    log.error("Unable to revert changes to " + tracked
+                              + " - you may need to manually revert these files. Error was: " + e.getMessage());
                 }
-            } catch (Exception e) {
-                hasErrors = true;
-                log.error(
-                    "Unable to revert changes to " + changedFile + " - you may need to manually revert this file. Error was: " + e.getMessage());
             }
         }
         hasReverted = true;
@@ -157,24 +242,153 @@ public class LocalGitRepo {
         tag.saveAtHEAD(git);
     }
 
-    public Optional<Ref> getRemoteTag(String tagName) throws GitAPIException {
-        Collection<Ref> remoteTags = allRemoteTags();
-        for (Ref remoteTag : remoteTags) {
-            if (remoteTag.getName().equals("refs/tags/" + tagName)) {
-                return Optional.of(remoteTag);
+    /**
+     * @param remoteTagsTtl number of seconds a snapshot of the remote tags may be reused by later runs, 0 to always
+     *                      list the remote tags.
+     */
+    public void setRemoteTagsTtl(int remoteTagsTtl) {
+        this.remoteTagsTtl = remoteTagsTtl;
+    }
+
+    /**
+     * @param localTagsFirst look up tags in the local repository first and only ask the remote if they do not exist.
+     */
+    public void setLocalTagsFirst(boolean localTagsFirst) {
+        this.localTagsFirst = localTagsFirst;
+    }
+
+    /**
+     * @param offline never contact the remote repository, tags are looked up in the local repository only.
+     */
+    public void setOffline(boolean offline) {
+        this.offline = offline;
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * @param metrics metrics to record the listing of remote tags in.
+     */
+    public void setMetrics(ReleaseMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Find the commit or tag of a previous release. In offline mode the recorded commit or a local tag is used, the
+     * remote repository is never contacted.
+     *
+     * @param tagName       name of the release tag.
+     * @param releaseCommit commit the release has been created from, if known.
+     *
+     * @return id of the commit or tag of the release.
+     *
+     * @throws MojoExecutionException if neither the commit nor the tag can be found.
+     */
+    public ObjectId previousReleaseId(String tagName, Optional<String> releaseCommit) throws MojoExecutionException {
+        if (offline && releaseCommit.isPresent()) {
+            final ObjectId commitId = ObjectId.fromString(releaseCommit.get());
+            if (!git.getRepository().hasObject(commitId)) {
+                throw new MojoExecutionException(
+                    "commit " + commitId.name() + " of release " + tagName + " is missing in the local repository, " +
+                    "fetch it or disable offline mode");
             }
+            return commitId;
+        }
+        final Optional<Ref> tagRef;
+        try {
+            tagRef = getRemoteTag(tagName);
+        } catch (GitAPIException e) {
+            throw new MojoExecutionException("unable to list tags: " + e.getMessage(), e);
+        }
+        if (!tagRef.isPresent()) {
+            throw new MojoExecutionException(offline
+                                             ? "unable to find local tag " + tagName + " in offline mode"
+                                             : "unable to find remote tag " + tagName);
+        }
+        return tagRef.get().getTarget().getObjectId();
+    }
+
+    public synchronized Optional<Ref> getRemoteTag(String tagName) throws GitAPIException {
+        final String refName = Constants.R_TAGS + tagName;
+        if (offline) {
+            return getLocalTag(refName);
+        }
+        if (localTagsFirst) {
+            final Optional<Ref> localTag = getLocalTag(refName);
+            if (localTag.isPresent()) {
+                return localTag;
+            }
+        }
+        Ref remoteTag = allRemoteTags().get(refName);
+        if (remoteTag == null && remoteTagsFromSnapshot) {
+            log.debug("tag " + tagName + " not found in snapshot, listing remote tags");
+            remoteTags = null;
+            remoteTag = listRemoteTags().get(refName);
+        }
+        return Optional.ofNullable(remoteTag);
+    }
+
+    private Optional<Ref> getLocalTag(String refName) throws GitAPIException {
+        try {
+            return Optional.ofNullable(git.getRepository().exactRef(refName));
+        } catch (IOException e) {
+            throw new RefNotFoundException("unable to read local tag " + refName, e);
         }
-        return Optional.empty();
     }
 
-    private Collection<Ref> allRemoteTags() throws GitAPIException {
+    private Map<String, Ref> allRemoteTags() throws GitAPIException {
+        if (remoteTags == null && remoteTagsTtl > 0) {
+            snapshot().load().ifPresent(tags -> {
+                remoteTags = tags;
+                remoteTagsFromSnapshot = true;
+            });
+        }
         if (remoteTags == null) {
-            LsRemoteCommand lsRemoteCommand = git.lsRemote().setTags(true).setHeads(false);
-            if (remoteUrl != null) {
-                lsRemoteCommand.setRemote(remoteUrl);
+            listRemoteTags();
+        }
+        return remoteTags;
+    }
+
+    /**
+     * @param url url of a remote, possibly with user and password.
+     * @return the url without user and password, fit for logs and recordings.
+     */
+    static String withoutCredentials(String url) {
+        try {
+            return new URIish(url).setUser(null).setPass(null).toString();
+        } catch (URISyntaxException e) {
+            return "unparseable remote url";
+        }
+    }
+
+    @SuppressWarnings("try")
+    private Map<String, Ref> listRemoteTags() throws GitAPIException {
+        LsRemoteCommand lsRemoteCommand = git.lsRemote().setTags(true).setHeads(false);
+        if (remoteUrl != null) {
+            lsRemoteCommand.setRemote(remoteUrl);
+        }
+        final Map<String, Ref> tags = new HashMap<>();
+        final FlightRecorderEvent.Span event = FlightRecorderEvent.REMOTE_REF_LISTING.begin();
+        try (ReleaseMetrics.Phase ignored = metrics.phase("listRemoteTags")) {
+            for (Ref ref : lsRemoteCommand.call()) {
+                tags.put(ref.getName(), ref);
             }
-            remoteTags = lsRemoteCommand.call();
+        }
+        event.commit(remoteUrl == null
+                     ? "default"
+                     : withoutCredentials(remoteUrl), tags.size());
+        metrics.count(ReleaseMetrics.REMOTE_TAG_LISTINGS, 1);
+        remoteTags = tags;
+        remoteTagsFromSnapshot = false;
+        if (remoteTagsTtl > 0) {
+            snapshot().store(tags.values());
         }
         return remoteTags;
     }
+
+    private RemoteTagSnapshot snapshot() {
+        return new RemoteTagSnapshot(git.getRepository().getDirectory(), remoteUrl, remoteTagsTtl, log);
+    }
 }
@@ -0,0 +1,115 @@
+package de.hilling.maven.release.repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdRef;
+import org.eclipse.jgit.lib.Ref;
+
+/**
+ * Snapshot of the tags of a remote repository, stored in the git directory.
+ * <p>
+ * Listing the tags of a remote with many releases is expensive, so the result is kept for a limited time. The snapshot
+ * is only used for the remote it has been created for. The url of the remote is recorded without credentials.
+ * </p>
+ */
+class RemoteTagSnapshot {
+
+    static final String SNAPSHOT_DIRECTORY = "smart-release";
+    static final String SNAPSHOT_FILE      = "remote-tags";
+
+    private static final String REMOTE_PREFIX = "# remote ";
+    private static final String NOT_PEELED    = "-";
+
+    private final File   snapshotFile;
+    private final String remote;
+    private final long   ttlMillis;
+    private final Log    log;
+
+    /**
+     * @param gitDirectory directory of the git repository, usually {@code .git}.
+     * @param remoteUrl    url of the remote, null for the default remote.
+     * @param ttlSeconds   time after which the snapshot is outdated.
+     * @param log          logger.
+     */
+    RemoteTagSnapshot(File gitDirectory, String remoteUrl, int ttlSeconds, Log log) {
+        this.snapshotFile = new File(new File(gitDirectory, SNAPSHOT_DIRECTORY), SNAPSHOT_FILE);
+        this.remote = remoteUrl == null
+                      ? "(default)"
+                      : LocalGitRepo.withoutCredentials(remoteUrl);
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.log = log;
+    }
+
+    /**
+     * @return the tags of the remote by name, empty if there is no snapshot for this remote or it is outdated.
+     */
+    Optional<Map<String, Ref>> load() {
+        if (!snapshotFile.isFile() || System.currentTimeMillis() - snapshotFile.lastModified() > ttlMillis) {
+            return Optional.empty();
+        }
+        try {
+            final List<String> lines = Files.readAllLines(snapshotFile.toPath(), StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).equals(REMOTE_PREFIX + remote)) {
+                return Optional.empty();
+            }
+            final Map<String, Ref> tags = new HashMap<>();
+            for (String line : lines.subList(1, lines.size())) {
+                final String[] parts = line.split(" ", 3);
+                if (parts.length != 3) {
+                    log.warn("ignoring invalid remote tag snapshot " + snapshotFile);
+                    return Optional.empty();
+                }
+                tags.put(parts[2], toRef(parts[2], ObjectId.fromString(parts[0]), parts[1]));
+            }
+            log.debug("using snapshot of " + tags.size() + " remote tags");
+            return Optional.of(tags);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("unable to read remote tag snapshot " + snapshotFile + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replace the snapshot. Failures are logged only.
+     *
+     * @param tags tags of the remote.
+     */
+    void store(Iterable<Ref> tags) {
+        final List<String> lines = new ArrayList<>();
+        lines.add(REMOTE_PREFIX + remote);
+        for (Ref tag : tags) {
+            final ObjectId peeled = tag.getPeeledObjectId();
+            lines.add(tag.getObjectId().name() + " " + (peeled == null
+                                                        ? NOT_PEELED
+                                                        : peeled.name()) + " " + tag.getName());
+        }
+        try {
+            Files.createDirectories(snapshotFile.getParentFile().toPath());
+            final File tempFile = File.createTempFile(SNAPSHOT_FILE, ".tmp", snapshotFile.getParentFile());
+            Files.write(tempFile.toPath(), lines, StandardCharsets.UTF_8);
+            Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("unable to write remote tag snapshot " + snapshotFile + ": " + e.getMessage());
+        }
+    }
+
+    private static Ref toRef(String name, ObjectId id, String peeled) {
+        if (NOT_PEELED.equals(peeled)) {
+            return new ObjectIdRef.Unpeeled(Ref.Storage.NETWORK, name, id);
+        }
+        return new ObjectIdRef.PeeledTag(Ref.Storage.NETWORK, name, id, ObjectId.fromString(peeled));
+    }
+}
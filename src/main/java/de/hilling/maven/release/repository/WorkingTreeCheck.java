@@ -0,0 +1,98 @@
+package de.hilling.maven.release.repository;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Optional;
+
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+
+/**
+ * Fast check whether the working tree is clean.
+ * <p>
+ * HEAD, the index and the working tree are walked together and the walk stops at the first difference. Directories
+ * that are ignored and contain no tracked files, like {@code target}, are not entered at all. Files are only hashed if
+ * their size or modification time differs from the index, so a clean working tree is usually checked without reading
+ * any file.
+ * </p>
+ * <p>
+ * The result is meant to skip the full {@code git status} in the common case. Use the status to report details.
+ * </p>
+ */
+class WorkingTreeCheck {
+
+    private static final int HEAD_TREE    = 0;
+    private static final int INDEX        = 1;
+    private static final int WORKING_TREE = 2;
+
+    private WorkingTreeCheck() {
+    }
+
+    /**
+     * @param repo  repository to check.
+     * @param paths paths relative to the working tree to restrict the check to, empty to check everything.
+     * @return first path that is modified, missing, untracked, or differs between HEAD and the index.
+     * @throws IOException if the repository cannot be read.
+     */
+    static Optional<String> firstDirtyPath(Repository repo, Collection<String> paths) throws IOException {
+        try (RevWalk revWalk = new RevWalk(repo); TreeWalk walk = new TreeWalk(repo)) {
+            final ObjectId head = repo.resolve(Constants.HEAD);
+            if (head == null) {
+                walk.addTree(new EmptyTreeIterator());
+            } else {
+                walk.addTree(revWalk.parseCommit(head).getTree());
+            }
+            walk.addTree(new DirCacheIterator(repo.readDirCache()));
+            final FileTreeIterator workingTree = new FileTreeIterator(repo);
+            walk.addTree(workingTree);
+            workingTree.setDirCacheIterator(walk, INDEX);
+            if (!paths.isEmpty() && !paths.contains("")) {
+                walk.setFilter(PathFilterGroup.createFromStrings(paths));
+            }
+            walk.setRecursive(false);
+            while (walk.next()) {
+                if (isDirty(walk)) {
+                    return Optional.of(walk.getPathString());
+                }
+                if (walk.isSubtree() && !isIgnoredUntracked(walk)) {
+                    walk.enterSubtree();
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isIgnoredUntracked(TreeWalk walk) throws IOException {
+        final WorkingTreeIterator file = walk.getTree(WORKING_TREE, WorkingTreeIterator.class);
+        return walk.getTree(INDEX, DirCacheIterator.class) == null && file != null && file.isEntryIgnored();
+    }
+
+    private static boolean isDirty(TreeWalk walk) throws IOException {
+        if (walk.isSubtree() || isIgnoredUntracked(walk)) {
+            return false;
+        }
+        if (walk.getRawMode(HEAD_TREE) != walk.getRawMode(INDEX) || !walk.idEqual(HEAD_TREE, INDEX)) {
+            return true;
+        }
+        final DirCacheIterator index = walk.getTree(INDEX, DirCacheIterator.class);
+        final WorkingTreeIterator file = walk.getTree(WORKING_TREE, WorkingTreeIterator.class);
+        if (index == null || file == null) {
+            return true;
+        }
+        final DirCacheEntry entry = index.getDirCacheEntry();
+        if (entry == null || entry.getFileMode() == FileMode.GITLINK || entry.isAssumeValid()) {
+            return false;
+        }
+        return file.isModified(entry, true, walk.getObjectReader());
+    }
+}
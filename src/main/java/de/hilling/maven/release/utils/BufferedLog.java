@@ -0,0 +1,120 @@
+package de.hilling.maven.release.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Log that keeps all messages until they are written to another log with {@link #replay(Log)}.
+ * <p>
+ * Used to keep the output of work done concurrently in a stable order.
+ * </p>
+ */
+public class BufferedLog implements Log {
+
+    private final Log                 target;
+    private final List<Consumer<Log>> messages = new ArrayList<>();
+
+    /**
+     * @param target log the messages will be written to. Only used to decide which levels are enabled.
+     */
+    public BufferedLog(Log target) {
+        this.target = target;
+    }
+
+    /**
+     * Write all buffered messages to the given log and clear the buffer.
+     *
+     * @param log log to write to.
+     */
+    public synchronized void replay(Log log) {
+        messages.forEach(message -> message.accept(log));
+        messages.clear();
+    }
+
+    private synchronized void add(Consumer<Log> message) {
+        messages.add(message);
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return target.isDebugEnabled();
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+        add(log -> log.debug(content));
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+        add(log -> log.debug(content, error));
+    }
+
+    @Override
+    public void debug(Throwable error) {
+        add(log -> log.debug(error));
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return target.isInfoEnabled();
+    }
+
+    @Override
+    public void info(CharSequence content) {
+        add(log -> log.info(content));
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+        add(log -> log.info(content, error));
+    }
+
+    @Override
+    public void info(Throwable error) {
+        add(log -> log.info(error));
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return target.isWarnEnabled();
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+        add(log -> log.warn(content));
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+        add(log -> log.warn(content, error));
+    }
+
+    @Override
+    public void warn(Throwable error) {
+        add(log -> log.warn(error));
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return target.isErrorEnabled();
+    }
+
+    @Override
+    public void error(CharSequence content) {
+        add(log -> log.error(content));
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+        add(log -> log.error(content, error));
+    }
+
+    @Override
+    public void error(Throwable error) {
+        add(log -> log.error(error));
+    }
+}
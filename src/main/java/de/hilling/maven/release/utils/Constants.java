@@ -7,4 +7,16 @@ public interface Constants {
 
     String MODULE_BUILD_FILE = "modules-to-build.txt";
     String FILES_TO_REVERT   = "files-to-revert.txt";
+
+    /*
+     * Defaults of the parameters of the change detection, shared by the goals, the reactor trimming and the command
+     * line.
+     */
+    String DEFAULT_NO_CHANGES_ACTION        = "ReleaseAll";
+    String DEFAULT_BUGFIX_RELEASE           = "false";
+    String DEFAULT_CHANGE_DETECTION         = "History";
+    String DEFAULT_CHANGE_DETECTION_THREADS = "0";
+    String DEFAULT_REMOTE_TAGS_TTL          = "300";
+    String DEFAULT_LOCAL_TAGS_FIRST         = "false";
+    String DEFAULT_OFFLINE                  = "false";
 }
@@ -0,0 +1,96 @@
+package de.hilling.maven.release.utils;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * Maven plugin log writing to a plexus logger, for code running outside of a mojo.
+ */
+public class PlexusLog implements Log {
+
+    private final Logger logger;
+
+    public PlexusLog(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return logger.isDebugEnabled();
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+        logger.debug(String.valueOf(content));
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+        logger.debug(String.valueOf(content), error);
+    }
+
+    @Override
+    public void debug(Throwable error) {
+        logger.debug(error.getMessage(), error);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return logger.isInfoEnabled();
+    }
+
+    @Override
+    public void info(CharSequence content) {
+        logger.info(String.valueOf(content));
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+        logger.info(String.valueOf(content), error);
+    }
+
+    @Override
+    public void info(Throwable error) {
+        logger.info(error.getMessage(), error);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return logger.isWarnEnabled();
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+        logger.warn(String.valueOf(content));
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+        logger.warn(String.valueOf(content), error);
+    }
+
+    @Override
+    public void warn(Throwable error) {
+        logger.warn(error.getMessage(), error);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return logger.isErrorEnabled();
+    }
+
+    @Override
+    public void error(CharSequence content) {
+        logger.error(String.valueOf(content));
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+        logger.error(String.valueOf(content), error);
+    }
+
+    @Override
+    public void error(Throwable error) {
+        logger.error(error.getMessage(), error);
+    }
+}
@@ -3,6 +3,8 @@ package de.hilling.maven.release.utils;
 import static java.lang.String.format;
 
 import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.settings.Server;
+import org.apache.maven.settings.Settings;
 import org.eclipse.jgit.transport.JschConfigSessionFactory;
 import org.eclipse.jgit.transport.OpenSshConfig;
 import org.eclipse.jgit.util.FS;
@@ -43,6 +45,33 @@ public class SshAgentSessionFactory extends JschConfigSessionFactory {
 		setPassphrase(passphraseOrNull);
 	}
 
+	/**
+	 * Installs the factory for all ssh connections opened by jgit. Used by the goals, the reactor trimming and the
+	 * command line, so the remote repository is reached with the same credentials by all of them.
+	 *
+	 * @param log              log for the factory.
+	 * @param settings         maven settings, may be null if {@code serverId} is null.
+	 * @param serverId         id of the server in the settings providing the private key and passphrase, or null.
+	 * @param knownHostsOrNull known hosts file or null.
+	 * @param identityFile     private key, overrides the one of the server, or null.
+	 * @param passphraseOrNull passphrase of the private key, overrides the one of the server, or null.
+	 */
+	public static void install(final Log log, final Settings settings, final String serverId,
+			final String knownHostsOrNull, final String identityFile, final String passphraseOrNull) {
+		String privateKey = identityFile;
+		String passphrase = passphraseOrNull;
+		if (serverId != null) {
+			final Server server = settings.getServer(serverId);
+			if (server != null) {
+				privateKey = privateKey == null ? server.getPrivateKey() : privateKey;
+				passphrase = passphrase == null ? server.getPassphrase() : passphrase;
+			} else {
+				log.warn(format("No server configuration in Maven settings found with id %s", serverId));
+			}
+		}
+		setInstance(new SshAgentSessionFactory(log, knownHostsOrNull, privateKey, passphrase));
+	}
+
 	public void setKnownHosts(String knownHosts) {
 		this.knownHostsOrNull = knownHosts;
 	}
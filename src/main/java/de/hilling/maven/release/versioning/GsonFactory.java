@@ -1,16 +1,55 @@
 package de.hilling.maven.release.versioning;
 
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonSerializer;
 
 public class GsonFactory {
+
+    /**
+     * Fields used by {@link ImmutableReleaseInfo} to cache lazy attributes, they are not part of the json format.
+     */
+    private static final Set<String> LAZY_FIELDS = ImmutableSet.of("lazyInitBitmap", "artifactIndex");
+
     public Gson createGson() {
-        final GsonBuilder builder = new GsonBuilder().setPrettyPrinting();
+        return builder().setPrettyPrinting().create();
+    }
+
+    /**
+     * @return gson without pretty printing, for json stored in git objects that are fetched by every clone.
+     */
+    public Gson createCompactGson() {
+        return builder().create();
+    }
+
+    private GsonBuilder builder() {
+        final GsonBuilder builder = new GsonBuilder();
+        builder.setExclusionStrategies(new ExclusionStrategy() {
+            @Override
+            public boolean shouldSkipField(FieldAttributes field) {
+                return field.getDeclaringClass() == ImmutableReleaseInfo.class
+                       && LAZY_FIELDS.contains(field.getName());
+            }
+
+            @Override
+            public boolean shouldSkipClass(Class<?> type) {
+                return false;
+            }
+        });
         builder.registerTypeAdapter(ZonedDateTime.class,
                                     (JsonDeserializer<ZonedDateTime>) (json, type, jsonDeserializationContext) -> ZonedDateTime
                                                                                                           .parse(json.getAsJsonPrimitive().getAsString()));
@@ -21,6 +60,18 @@ public class GsonFactory {
                                                                                                               (DateTimeFormatter
                                                                                             .ISO_DATE_TIME)));
 
-        return builder.create();
+        // the immutable lists used by the generated value classes cannot be instantiated by gson itself.
+        builder.registerTypeHierarchyAdapter(ImmutableList.class,
+                                             (JsonDeserializer<ImmutableList<?>>) (json, type, context) -> {
+                                                 final Type elementType = ((ParameterizedType) type)
+                                                                              .getActualTypeArguments()[0];
+                                                 final List<Object> elements = new ArrayList<>();
+                                                 for (JsonElement element : json.getAsJsonArray()) {
+                                                     elements.add(context.deserialize(element, elementType));
+                                                 }
+                                                 return ImmutableList.copyOf(elements);
+                                             });
+
+        return builder;
     }
 }
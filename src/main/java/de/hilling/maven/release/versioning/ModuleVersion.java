@@ -1,6 +1,7 @@
 package de.hilling.maven.release.versioning;
 
 import java.time.ZonedDateTime;
+import java.util.Optional;
 
 import org.immutables.value.Value;
 
@@ -15,6 +16,18 @@ public abstract class ModuleVersion {
 
     public abstract ImmutableFixVersion getVersion();
 
+    /**
+     * @return fingerprint of the module directory at the time of the release. Child module directories are not part
+     * of the fingerprint. Empty for releases that have been created by older versions of the plugin.
+     */
+    public abstract Optional<String> getTreeFingerprint();
+
+    /**
+     * @return id of the commit the release has been created from. The release tag points to a commit on top of it
+     * that only updates the release info. Empty for releases that have been created by older versions of the plugin.
+     */
+    public abstract Optional<String> getReleaseCommit();
+
     @Override
     public String toString() {
         return getArtifact() + "-"  + getVersion().toString() + "-" + getReleaseTag();
@@ -0,0 +1,16 @@
+package de.hilling.maven.release.versioning;
+
+import org.immutables.value.Value;
+
+/**
+ * Decision for a single module of a {@link ReleasePlan}.
+ */
+@Value.Immutable
+public abstract class PlannedModule {
+
+    public abstract String getRelativePathToModule();
+
+    public abstract ImmutableModuleVersion getModuleVersion();
+
+    public abstract boolean isToBeReleased();
+}
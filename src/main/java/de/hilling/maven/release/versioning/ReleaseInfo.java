@@ -1,6 +1,9 @@
 package de.hilling.maven.release.versioning;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.immutables.value.Value;
@@ -15,8 +18,21 @@ public abstract class ReleaseInfo {
 
     public abstract List<ImmutableModuleVersion> getModules();
 
+    /**
+     * @return index of the modules by artifact, built on first use. If an artifact occurs more than once, the first
+     * module wins.
+     */
+    @Value.Lazy
+    public Map<ImmutableQualifiedArtifact, ImmutableModuleVersion> artifactIndex() {
+        final Map<ImmutableQualifiedArtifact, ImmutableModuleVersion> index = new HashMap<>();
+        for (ImmutableModuleVersion moduleVersion : getModules()) {
+            index.putIfAbsent(moduleVersion.getArtifact(), moduleVersion);
+        }
+        return Collections.unmodifiableMap(index);
+    }
+
     public Optional<ImmutableModuleVersion> versionForArtifact(QualifiedArtifact artifact) {
-        return getModules().stream().filter(mv -> mv.getArtifact().equals(artifact)).findFirst();
+        return Optional.ofNullable(artifactIndex().get(ImmutableQualifiedArtifact.copyOf(artifact)));
     }
 
     @Override
@@ -0,0 +1,27 @@
+package de.hilling.maven.release.versioning;
+
+import java.util.List;
+
+import org.immutables.value.Value;
+
+/**
+ * Modules and versions of a release as computed by the {@code next} goal, so {@code prepare} can reuse them.
+ */
+@Value.Immutable
+public abstract class ReleasePlan {
+
+    /**
+     * @return id of the commit the plan has been computed for.
+     */
+    public abstract String getHeadCommit();
+
+    /**
+     * @return fingerprint of the projects and parameters the plan has been computed from.
+     */
+    public abstract String getInputsFingerprint();
+
+    /**
+     * @return all modules of the reactor in build order.
+     */
+    public abstract List<ImmutablePlannedModule> getModules();
+}
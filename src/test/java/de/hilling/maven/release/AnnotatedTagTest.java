@@ -4,16 +4,24 @@ import e2e.ProjectType;
 import scaffolding.GitMatchers;
 import scaffolding.TestProject;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.io.IOException;
+import java.util.Optional;
 
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.junit.Rule;
 import org.junit.Test;
 
+import de.hilling.maven.release.releaseinfo.ReleaseInfoStorage;
+import de.hilling.maven.release.versioning.ImmutableModuleVersion;
+import de.hilling.maven.release.versioning.ImmutableReleaseInfo;
 import de.hilling.maven.release.versioning.ModuleVersion;
 import com.google.gson.JsonSyntaxException;
 
@@ -45,6 +53,32 @@ public class AnnotatedTagTest {
         assertThat(moduleVersion.getVersion().getMinorVersion(), equalTo(2134L));
     }
 
+    @Test
+    public void compactTagListsReleasedModulesAndPointsToTheReleaseInfo() throws GitAPIException, IOException {
+        final ImmutableModuleVersion unchanged = TestUtils.releaseInfo(1L, 0L, "release-1", "unchanged-module")
+                                                          .getModules().get(0);
+        final ImmutableModuleVersion released = TestUtils.releaseInfo(2L, 0L, "release-2", "released-module")
+                                                         .getModules().get(0).withReleaseTag("release-2");
+        final ImmutableReleaseInfo releaseInfo = ImmutableReleaseInfo.builder().tagName("release-2")
+                                                                     .addModules(unchanged, released).build();
+        final ObjectId blob = new ReleaseInfoStorage(project.localDir, project.local).store(releaseInfo);
+
+        final Ref ref = new AnnotatedTag("release-2", releaseInfo, blob).saveAtHEAD(project.local);
+
+        final String message;
+        try (RevWalk walk = new RevWalk(project.local.getRepository())) {
+            message = walk.parseTag(ref.getObjectId()).getFullMessage();
+        }
+        assertThat(message, containsString("released-module"));
+        assertThat(message, not(containsString("unchanged-module")));
+        assertThat(message, containsString(blob.name()));
+        final AnnotatedTag inflatedTag = AnnotatedTag.fromRef(project.local.getRepository(), ref);
+        assertThat(inflatedTag.getReleaseInfoBlob(), equalTo(Optional.of(blob)));
+        assertThat(inflatedTag.getReleaseInfo().getModules().size(), equalTo(2));
+        assertThat(inflatedTag.getReleaseInfo().versionForArtifact(TestUtils.artifactIdForModule("unchanged-module"))
+                              .get().getVersion().getMajorVersion(), equalTo(1L));
+    }
+
     @Test(expected = JsonSyntaxException.class)
     public void ifATagIsSavedWithoutJsonThenAnExceptionIsThrown() throws GitAPIException, IOException {
         project.local.tag().setName("my-name-1.0.2").setAnnotated(true).setMessage("This is not json").call();
@@ -0,0 +1,30 @@
+package de.hilling.maven.release;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import de.hilling.maven.release.utils.BufferedLog;
+
+public class BufferedLogTest {
+
+    private final Log target = mock(Log.class);
+
+    @Test
+    public void messagesAreWrittenOnReplayOnly() {
+        final BufferedLog log = new BufferedLog(target);
+        log.info("first");
+        log.warn("second");
+        verifyZeroInteractions(target);
+
+        log.replay(target);
+
+        final InOrder inOrder = inOrder(target);
+        inOrder.verify(target).info("first");
+        inOrder.verify(target).warn("second");
+    }
+}
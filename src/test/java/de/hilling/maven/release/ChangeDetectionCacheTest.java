@@ -0,0 +1,76 @@
+package de.hilling.maven.release;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+import java.io.File;
+import java.util.Optional;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ChangeDetectionCacheTest {
+
+    private static final ObjectId TAG  = ObjectId.fromString("1111111111111111111111111111111111111111");
+    private static final ObjectId HEAD = ObjectId.fromString("2222222222222222222222222222222222222222");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Log log = new SystemStreamLog();
+    private File gitDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        gitDirectory = folder.newFolder(".git");
+    }
+
+    @Test
+    public void entriesSurviveReloading() {
+        final String changed = ChangeDetectionCache.key(ChangeDetection.History, TAG, HEAD, "changed", emptyList());
+        final String unchanged = ChangeDetectionCache.key(ChangeDetection.History, TAG, HEAD, "unchanged",
+                                                          emptyList());
+        final ChangeDetectionCache cache = new ChangeDetectionCache(gitDirectory, log);
+        cache.put(changed, true);
+        cache.put(unchanged, false);
+        cache.store();
+
+        final ChangeDetectionCache reloaded = new ChangeDetectionCache(gitDirectory, log);
+        assertThat(reloaded.get(changed), equalTo(Optional.of(true)));
+        assertThat(reloaded.get(unchanged), equalTo(Optional.of(false)));
+        assertThat(reloaded.get(TAG.name()), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() {
+        final ChangeDetectionCache cache = new ChangeDetectionCache(gitDirectory, log, 2);
+        cache.put("a", true);
+        cache.put("b", true);
+        cache.get("a");
+        cache.put("c", true);
+
+        assertThat(cache.get("a"), equalTo(Optional.of(true)));
+        assertThat(cache.get("b"), equalTo(Optional.empty()));
+        assertThat(cache.get("c"), equalTo(Optional.of(true)));
+    }
+
+    @Test
+    public void keysDependOnAllInputs() {
+        final String key = ChangeDetectionCache.key(ChangeDetection.History, TAG, HEAD, "parent", emptyList());
+
+        assertThat(ChangeDetectionCache.key(ChangeDetection.History, TAG, HEAD, "parent", emptyList()), equalTo(key));
+        assertThat(ChangeDetectionCache.key(ChangeDetection.Tree, TAG, HEAD, "parent", emptyList()), not(key));
+        assertThat(ChangeDetectionCache.key(ChangeDetection.History, HEAD, TAG, "parent", emptyList()), not(key));
+        assertThat(ChangeDetectionCache.key(ChangeDetection.History, TAG, HEAD, "other", emptyList()), not(key));
+        assertThat(ChangeDetectionCache.key(ChangeDetection.History, TAG, HEAD, "parent", asList("parent/child")),
+                   not(key));
+    }
+}
@@ -0,0 +1,74 @@
+package de.hilling.maven.release;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+import org.junit.Test;
+
+public class DependentsIndexTest {
+
+    private final MavenProject parent     = project("parent");
+    private final MavenProject coreUtils  = project("core-utils");
+    private final MavenProject consoleApp = project("console-app");
+    private final MavenProject other      = project("other");
+
+    @Test
+    public void dependentsAreMarked() {
+        consoleApp.getModel().addDependency(dependency("core-utils"));
+        final DependentsIndex index = new DependentsIndex(asList(coreUtils, consoleApp, other));
+
+        index.markDependentsOf(coreUtils);
+
+        assertThat(index.isMarked(consoleApp), is(true));
+        assertThat(index.isMarked(other), is(false));
+        assertThat(index.isMarked(coreUtils), is(false));
+    }
+
+    @Test
+    public void childrenOfParentsAreMarked() {
+        coreUtils.setParent(parent);
+        final DependentsIndex index = new DependentsIndex(asList(parent, coreUtils, other));
+
+        index.markDependentsOf(parent);
+
+        assertThat(index.isMarked(coreUtils), is(true));
+        assertThat(index.isMarked(other), is(false));
+    }
+
+    @Test
+    public void nothingIsMarkedInitially() {
+        consoleApp.getModel().addDependency(dependency("core-utils"));
+        final DependentsIndex index = new DependentsIndex(asList(coreUtils, consoleApp));
+
+        assertThat(index.isMarked(consoleApp), is(false));
+    }
+
+    @Test
+    public void projectsAreGroupedIntoWavesOfIndependentProjects() {
+        coreUtils.setParent(parent);
+        consoleApp.setParent(parent);
+        consoleApp.getModel().addDependency(dependency("core-utils"));
+        other.setParent(parent);
+        final DependentsIndex index = new DependentsIndex(asList(parent, coreUtils, other, consoleApp));
+
+        assertThat(index.waves(), contains(asList(parent), asList(coreUtils, other), asList(consoleApp)));
+    }
+
+    private static MavenProject project(String artifactId) {
+        final MavenProject project = new MavenProject();
+        project.setGroupId(TestUtils.TEST_GROUP_ID);
+        project.setArtifactId(artifactId);
+        return project;
+    }
+
+    private static Dependency dependency(String artifactId) {
+        final Dependency dependency = new Dependency();
+        dependency.setGroupId(TestUtils.TEST_GROUP_ID);
+        dependency.setArtifactId(artifactId);
+        return dependency;
+    }
+}
@@ -4,22 +4,28 @@ import e2e.ProjectType;
 import scaffolding.TestProject;
 
 import static de.hilling.maven.release.TestUtils.saveFileInModule;
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugin.logging.SystemStreamLog;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 
+import de.hilling.maven.release.metrics.ReleaseMetrics;
 import de.hilling.maven.release.releaseinfo.ReleaseInfoStorage;
 
 public class DiffDetectorTest {
@@ -98,4 +104,97 @@ public class DiffDetectorTest {
         TreeWalkingDiffDetector detector = new TreeWalkingDiffDetector(independentVersions.local.getRepository(), log);
         assertThat(detector.hasChangedSince("console-app", singletonList("console-app"),refMap.get(tag3)), is(false));
     }
+
+    @Test
+    public void canDetectChangesOfAllModulesInOneWalk() throws IOException, GitAPIException {
+        saveFileInModule(independentVersions, "console-app", "1.2.3", refMap);
+        AnnotatedTag tag2 = saveFileInModule(independentVersions, "core-utils", "2.0", refMap);
+        independentVersions.commitRandomFile("console-app");
+        independentVersions.commitRandomFile(".");
+
+        TreeWalkingDiffDetector detector = new TreeWalkingDiffDetector(independentVersions.local.getRepository(), log);
+        final ModulePathIndex modules = new ModulePathIndex(asList(".", "console-app", "core-utils"));
+        assertThat(detector.changedModulesSince(modules, refMap.get(tag2).getObjectId()),
+                   containsInAnyOrder(".", "console-app"));
+    }
+
+    @Test
+    public void singleWalkIgnoresReleaseInfo() throws IOException, GitAPIException {
+        AnnotatedTag tag1 = saveFileInModule(singleProject, ".", "1.0.1", refMap);
+        singleProject.commitFile(".", ReleaseInfoStorage.RELEASE_INFO_FILE, "any-content");
+
+        TreeWalkingDiffDetector detector = new TreeWalkingDiffDetector(singleProject.local.getRepository(), log);
+        final ModulePathIndex modules = new ModulePathIndex(singletonList("."));
+        assertThat(detector.changedModulesSince(modules, refMap.get(tag1).getObjectId()), is(empty()));
+    }
+
+    @Test
+    public void treeComparisonDetectsChangesOfAllModules() throws IOException, GitAPIException {
+        saveFileInModule(independentVersions, "console-app", "1.2.3", refMap);
+        AnnotatedTag tag2 = saveFileInModule(independentVersions, "core-utils", "2.0", refMap);
+        independentVersions.commitRandomFile("console-app");
+
+        TreeWalkingDiffDetector detector = new TreeWalkingDiffDetector(independentVersions.local.getRepository(), log);
+        final ModulePathIndex modules = new ModulePathIndex(asList(".", "console-app", "core-utils"));
+        assertThat(detector.changedModulesBetweenTrees(modules, refMap.get(tag2).getObjectId()),
+                   containsInAnyOrder("console-app"));
+    }
+
+    @Test
+    public void treeComparisonIgnoresRevertedChangesWhereHistoryDoesNot() throws IOException, GitAPIException {
+        AnnotatedTag tag1 = saveFileInModule(independentVersions, "core-utils", "2.0", refMap);
+        independentVersions.commitFile("core-utils", "changing.txt", "changed");
+        independentVersions.local.rm().addFilepattern("core-utils/changing.txt").call();
+        independentVersions.local.commit().setMessage("reverting change").call();
+
+        TreeWalkingDiffDetector detector = new TreeWalkingDiffDetector(independentVersions.local.getRepository(), log);
+        final ModulePathIndex modules = new ModulePathIndex(asList(".", "console-app", "core-utils"));
+        final ObjectId tagId = refMap.get(tag1).getObjectId();
+        assertThat(detector.changedModulesBetweenTrees(modules, tagId), is(empty()));
+        assertThat(detector.changedModulesSince(modules, tagId), containsInAnyOrder("core-utils"));
+    }
+
+    @Test
+    public void changesCanBePrefetchedConcurrently() throws IOException, GitAPIException {
+        AnnotatedTag tag1 = saveFileInModule(independentVersions, "console-app", "1.2.3", refMap);
+        AnnotatedTag tag2 = saveFileInModule(independentVersions, "core-utils", "2.0", refMap);
+        independentVersions.commitRandomFile("core-utils");
+
+        final ReactorChangeDetector changeDetector = new ReactorChangeDetector(
+            independentVersions.local.getRepository(), asList(".", "console-app", "core-utils"),
+            asList("console-app", "core-utils"), ChangeDetection.History, 4, log, ReleaseMetrics.disabled());
+        final Map<String, ObjectId> tagsByModule = new HashMap<>();
+        tagsByModule.put("console-app", refMap.get(tag1).getObjectId());
+        tagsByModule.put("core-utils", refMap.get(tag2).getObjectId());
+        changeDetector.prefetchFingerprints(asList(".", "console-app", "core-utils"));
+        changeDetector.prefetchChanges(tagsByModule);
+
+        assertThat(changeDetector.hasChangedSince("console-app", refMap.get(tag1)), is(false));
+        assertThat(changeDetector.hasChangedSince("core-utils", refMap.get(tag1)), is(true));
+        assertThat(changeDetector.hasChangedSince("console-app", refMap.get(tag2)), is(false));
+        assertThat(changeDetector.hasChangedSince("core-utils", refMap.get(tag2)), is(true));
+    }
+
+    @Test
+    public void changesOfDeclaredModulesOutsideTheReactorDoNotChangeTheirParent() throws IOException,
+                                                                                       GitAPIException {
+        AnnotatedTag tag1 = saveFileInModule(independentVersions, ".", "1.0", refMap);
+        final String fingerprint = changeDetector(ChangeDetection.Tree).fingerprint(".").get();
+        independentVersions.commitRandomFile("core-utils");
+
+        for (ChangeDetection changeDetection : ChangeDetection.values()) {
+            final ReactorChangeDetector changeDetector = changeDetector(changeDetection);
+            assertThat(changeDetector.hasChangedSince(".", refMap.get(tag1)), is(false));
+            assertThat(changeDetector.fingerprint("."), is(Optional.of(fingerprint)));
+        }
+    }
+
+    /**
+     * Reactor of a build with {@code -pl .,console-app}, core-utils is declared but not selected.
+     */
+    private ReactorChangeDetector changeDetector(ChangeDetection changeDetection) {
+        return new ReactorChangeDetector(independentVersions.local.getRepository(), asList(".", "console-app"),
+                                         asList("console-app", "core-utils"), changeDetection, 1, log,
+                                         ReleaseMetrics.disabled());
+    }
 }
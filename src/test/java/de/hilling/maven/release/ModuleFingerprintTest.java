@@ -0,0 +1,77 @@
+package de.hilling.maven.release;
+
+import e2e.ProjectType;
+import scaffolding.TestProject;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.util.Optional;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import de.hilling.maven.release.releaseinfo.ReleaseInfoStorage;
+
+public class ModuleFingerprintTest {
+
+    @Rule
+    public TestProject project = new TestProject(ProjectType.NESTED);
+
+    private Repository        repo;
+    private ModuleFingerprint fingerprint;
+
+    @Before
+    public void setUp() {
+        repo = project.local.getRepository();
+        fingerprint = new ModuleFingerprint(repo, new ModulePathIndex(
+            asList(".", "core-utils", "console-app", "parent-module", "server-modules",
+                   "server-modules/server-module-a", "server-modules/server-module-b",
+                   "server-modules/a-misnamed-one")));
+    }
+
+    @Test
+    public void fingerprintOfModuleWithoutChildrenIsTheTreeId() throws Exception {
+        final ObjectId head = repo.resolve("HEAD");
+        try (RevWalk walk = new RevWalk(repo);
+             TreeWalk treeWalk = TreeWalk.forPath(repo, "core-utils", walk.parseCommit(head).getTree())) {
+            assertThat(fingerprint.of("core-utils", head), equalTo(Optional.of(treeWalk.getObjectId(0).name())));
+        }
+    }
+
+    @Test
+    public void missingModulesHaveNoFingerprint() throws Exception {
+        assertThat(fingerprint.of("no-such-module", repo.resolve("HEAD")), is(Optional.empty()));
+    }
+
+    @Test
+    public void changesInChildModulesDoNotChangeTheFingerprint() throws Exception {
+        final Optional<String> root = fingerprint.of(".", repo.resolve("HEAD"));
+        final Optional<String> serverModules = fingerprint.of("server-modules", repo.resolve("HEAD"));
+        project.commitRandomFile("core-utils");
+        project.commitRandomFile("server-modules/server-module-a");
+        project.commitFile(".", ReleaseInfoStorage.RELEASE_INFO_FILE, "any-content");
+        assertThat(fingerprint.of(".", repo.resolve("HEAD")), equalTo(root));
+        assertThat(fingerprint.of("server-modules", repo.resolve("HEAD")), equalTo(serverModules));
+    }
+
+    @Test
+    public void changesInTheModuleChangeTheFingerprint() throws Exception {
+        final Optional<String> root = fingerprint.of(".", repo.resolve("HEAD"));
+        final Optional<String> serverModules = fingerprint.of("server-modules", repo.resolve("HEAD"));
+        final Optional<String> serverModuleA = fingerprint.of("server-modules/server-module-a", repo.resolve("HEAD"));
+        project.commitRandomFile(".");
+        project.commitRandomFile("server-modules");
+        assertThat(fingerprint.of(".", repo.resolve("HEAD")), not(equalTo(root)));
+        assertThat(fingerprint.of("server-modules", repo.resolve("HEAD")), not(equalTo(serverModules)));
+        assertThat(fingerprint.of("server-modules/server-module-a", repo.resolve("HEAD")), equalTo(serverModuleA));
+    }
+}
@@ -0,0 +1,65 @@
+package de.hilling.maven.release;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import org.junit.Test;
+
+public class ModulePathIndexTest {
+
+    private final ModulePathIndex index = new ModulePathIndex(
+        asList(".", "core-utils", "server-modules", "server-modules/server-module-a"));
+
+    @Test
+    public void filesInTheRootBelongToTheRootModule() {
+        assertThat(index.ownerOf("pom.xml"), equalTo("."));
+        assertThat(index.ownerOf("docs/readme.md"), equalTo("."));
+    }
+
+    @Test
+    public void filesBelongToTheInnermostModule() {
+        assertThat(index.ownerOf("core-utils/pom.xml"), equalTo("core-utils"));
+        assertThat(index.ownerOf("server-modules/pom.xml"), equalTo("server-modules"));
+        assertThat(index.ownerOf("server-modules/server-module-a/src/main/java/App.java"),
+                   equalTo("server-modules/server-module-a"));
+    }
+
+    @Test
+    public void prefixesMustMatchCompleteDirectoryNames() {
+        assertThat(index.ownerOf("core-utils-extra/pom.xml"), equalTo("."));
+        assertThat(index.ownerOf("server-modules/server-module-ab/pom.xml"), equalTo("server-modules"));
+    }
+
+    @Test
+    public void pathsOutsideOfAllModulesHaveNoOwner() {
+        final ModulePathIndex withoutRoot = new ModulePathIndex(asList("core-utils"));
+        assertThat(withoutRoot.ownerOf("pom.xml"), nullValue());
+        assertThat(withoutRoot.ownerOf("core-utils/pom.xml"), equalTo("core-utils"));
+    }
+
+    @Test
+    public void modulesBelowIncludeAllNestedModules() {
+        assertThat(index.modulesBelow("."),
+                   contains("core-utils", "server-modules", "server-modules/server-module-a"));
+        assertThat(index.modulesBelow("server-modules"), contains("server-modules/server-module-a"));
+        assertThat(index.modulesBelow("core-utils"), empty());
+    }
+
+    @Test
+    public void modulesBelowAreComputedOnce() {
+        assertThat(index.modulesBelow("server-modules"), sameInstance(index.modulesBelow("server-modules")));
+        assertThat(index.modulesBelow("unknown"), empty());
+    }
+
+    @Test
+    public void modulesBelowSkipDirectoriesWithoutPom() {
+        final ModulePathIndex nested = new ModulePathIndex(asList("parent", "parent/group/child", "parent-sibling"));
+        assertThat(nested.modulesBelow("parent"), contains("parent/group/child"));
+        assertThat(nested.modulesBelow("parent-sibling"), empty());
+    }
+}
@@ -0,0 +1,73 @@
+package de.hilling.maven.release;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import org.junit.Test;
+
+public class PomVersionRewriterTest {
+
+    private static final String POM = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                                       + "<!-- <version>comment</version> -->\n"
+                                       + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+                                       + "    <parent>\n"
+                                       + "        <groupId>g</groupId>\n"
+                                       + "        <artifactId>parent</artifactId>\n"
+                                       + "        <version>1-SNAPSHOT</version>\n"
+                                       + "    </parent>\n"
+                                       + "    <artifactId>module</artifactId>\n"
+                                       + "    <version> 1-SNAPSHOT </version>\n"
+                                       + "    <dependencyManagement><dependencies><dependency>\n"
+                                       + "        <groupId>g</groupId><artifactId>core</artifactId>"
+                                       + "<version>1-SNAPSHOT</version>\n"
+                                       + "    </dependency></dependencies></dependencyManagement>\n"
+                                       + "    <dependencies>\n"
+                                       + "        <dependency>\n"
+                                       + "            <groupId>g</groupId>\n"
+                                       + "            <!-- keep me -->\n"
+                                       + "            <artifactId>core</artifactId>\n"
+                                       + "            <version>1-SNAPSHOT</version>\n"
+                                       + "        </dependency>\n"
+                                       + "        <dependency>\n"
+                                       + "            <groupId>g</groupId>\n"
+                                       + "            <artifactId>other</artifactId>\n"
+                                       + "            <version>1-SNAPSHOT</version>\n"
+                                       + "        </dependency>\n"
+                                       + "    </dependencies>\n"
+                                       + "</project>\n";
+
+    @Test
+    public void unchangedPomIsCopied() {
+        assertThat(new PomVersionRewriter(POM, "UTF-8").rewrite(), equalTo(POM));
+    }
+
+    @Test
+    public void onlyRequestedVersionsAreReplaced() {
+        final PomVersionRewriter rewriter = new PomVersionRewriter(POM, "UTF-8");
+        rewriter.setProjectVersion("2.0");
+        rewriter.setParentVersion("3.0");
+        rewriter.setDependencyVersion("g", "core", "4.0");
+
+        final String expected = POM.replace("<version>1-SNAPSHOT</version>\n    </parent>",
+                                            "<version>3.0</version>\n    </parent>")
+                                   .replace("<version> 1-SNAPSHOT </version>", "<version> 2.0 </version>")
+                                   .replace("<artifactId>core</artifactId>\n            <version>1-SNAPSHOT",
+                                            "<artifactId>core</artifactId>\n            <version>4.0");
+        assertThat(rewriter.rewrite(), equalTo(expected));
+    }
+
+    @Test
+    public void missingProjectVersionIsInsertedAfterArtifactId() {
+        final String pom = "<project>\r\n\t<artifactId>module</artifactId>\r\n\t<name>n</name>\r\n</project>";
+        final PomVersionRewriter rewriter = new PomVersionRewriter(pom, "UTF-8");
+        rewriter.setProjectVersion("2.0");
+
+        assertThat(rewriter.rewrite(), equalTo(
+            "<project>\r\n\t<artifactId>module</artifactId>\r\n\t<version>2.0</version>\r\n\t<name>n</name>\r\n</project>"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unknownDependencyIsRejected() {
+        new PomVersionRewriter(POM, "UTF-8").setDependencyVersion("g", "unknown", "1.0");
+    }
+}
@@ -0,0 +1,66 @@
+package de.hilling.maven.release;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PomWriteJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final PomWriteJournal journal = new PomWriteJournal(new SystemStreamLog());
+
+    @Test
+    public void replacedFilesAreRestored() throws Exception {
+        final File pom = pom("pom.xml", "original");
+        journal.record(pom, bytes("original"));
+        final File temporary = pom("pom.tmp", "release");
+
+        journal.replace(pom, temporary);
+        assertThat(content(pom), equalTo("release"));
+        assertThat(temporary.exists(), equalTo(false));
+
+        assertThat(journal.rollback(), empty());
+        assertThat(content(pom), equalTo("original"));
+    }
+
+    @Test
+    public void unchangedFilesAreNotTouched() throws Exception {
+        final File pom = pom("pom.xml", "original");
+        journal.record(pom, bytes("original"));
+        final long lastModified = pom.lastModified();
+        pom.setLastModified(lastModified - 10000);
+
+        assertThat(journal.rollback(), empty());
+        assertThat(pom.lastModified(), equalTo(lastModified - 10000));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void onlyRecordedFilesCanBeReplaced() throws Exception {
+        journal.replace(pom("pom.xml", "original"), pom("pom.tmp", "release"));
+    }
+
+    private File pom(String name, String content) throws Exception {
+        final File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), bytes(content));
+        return file;
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String content(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
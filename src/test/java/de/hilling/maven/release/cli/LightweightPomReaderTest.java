@@ -0,0 +1,103 @@
+package de.hilling.maven.release.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.hilling.maven.release.exceptions.ValidationException;
+
+public class LightweightPomReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final LightweightPomReader reader = new LightweightPomReader();
+
+    @Test
+    public void modulesAreSortedInBuildOrder() {
+        final List<MavenProject> projects = reader.readReactor(new File("test-projects/deep-dependencies"));
+
+        assertThat(artifactIds(projects),
+                   contains("deep-dependencies-aggregator", "parent-module", "more-utils", "core-utils",
+                            "console-app"));
+    }
+
+    @Test
+    public void coordinatesAndParentsAreRead() {
+        final List<MavenProject> projects = reader.readReactor(new File("test-projects/deep-dependencies"));
+        final MavenProject consoleApp = projects.get(4);
+
+        assertThat(consoleApp.getGroupId(), equalTo("de.hilling.maven.release.testprojects.deepdependencies"));
+        assertThat(consoleApp.getVersion(), equalTo("3-SNAPSHOT"));
+        assertThat(consoleApp.getParent(), equalTo(projects.get(1)));
+        assertThat(consoleApp.getBasedir(), equalTo(new File("test-projects/deep-dependencies/console-app")
+                                                        .getAbsoluteFile()));
+        assertThat(consoleApp.getModel().getDependencies().get(0).getArtifactId(), equalTo("core-utils"));
+    }
+
+    @Test
+    public void inheritedValuesAndPropertiesAreResolved() throws Exception {
+        write("pom.xml", pom("<groupId>org.example</groupId><artifactId>root</artifactId><version>1-SNAPSHOT</version>"
+                             + "<packaging>pom</packaging><properties><lib.version>4-SNAPSHOT</lib.version>"
+                             + "</properties><modules><module>app</module><module>lib</module></modules>"));
+        write("lib/pom.xml", pom(parent() + "<artifactId>lib</artifactId><version>${lib.version}</version>"));
+        write("app/pom.xml", pom(parent() + "<artifactId>app</artifactId><dependencies><dependency>"
+                                 + "<groupId>${project.groupId}</groupId><artifactId>lib</artifactId>"
+                                 + "<version>${lib.version}</version></dependency></dependencies>"));
+
+        final List<MavenProject> projects = reader.readReactor(folder.getRoot());
+
+        assertThat(artifactIds(projects), contains("root", "lib", "app"));
+        final MavenProject app = projects.get(2);
+        assertThat(app.getGroupId(), equalTo("org.example"));
+        assertThat(app.getVersion(), equalTo("1-SNAPSHOT"));
+        final Dependency dependency = app.getModel().getDependencies().get(0);
+        assertThat(dependency.getGroupId(), equalTo("org.example"));
+        assertThat(dependency.getVersion(), equalTo("4-SNAPSHOT"));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void cyclesAreRejected() throws Exception {
+        write("pom.xml", pom("<groupId>org.example</groupId><artifactId>root</artifactId><version>1-SNAPSHOT</version>"
+                             + "<packaging>pom</packaging><modules><module>a</module><module>b</module></modules>"));
+        write("a/pom.xml", pom(parent() + "<artifactId>a</artifactId>" + dependency("b")));
+        write("b/pom.xml", pom(parent() + "<artifactId>b</artifactId>" + dependency("a")));
+
+        reader.readReactor(folder.getRoot());
+    }
+
+    private void write(String path, String content) throws Exception {
+        FileUtils.writeStringToFile(new File(folder.getRoot(), path), content, StandardCharsets.UTF_8);
+    }
+
+    private static String pom(String content) {
+        return "<?xml version=\"1.0\"?><project xmlns=\"http://maven.apache.org/POM/4.0.0\">"
+               + "<modelVersion>4.0.0</modelVersion>" + content + "</project>";
+    }
+
+    private static String parent() {
+        return "<parent><groupId>org.example</groupId><artifactId>root</artifactId><version>1-SNAPSHOT</version>"
+               + "</parent>";
+    }
+
+    private static String dependency(String artifactId) {
+        return "<dependencies><dependency><groupId>org.example</groupId><artifactId>" + artifactId + "</artifactId>"
+               + "<version>1-SNAPSHOT</version></dependency></dependencies>";
+    }
+
+    private static List<String> artifactIds(List<MavenProject> projects) {
+        return projects.stream().map(MavenProject::getArtifactId).collect(Collectors.toList());
+    }
+}
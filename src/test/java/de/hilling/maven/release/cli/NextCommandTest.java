@@ -0,0 +1,80 @@
+package de.hilling.maven.release.cli;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+
+import e2e.ProjectType;
+import scaffolding.TestProject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+
+import de.hilling.maven.release.utils.Constants;
+
+public class NextCommandTest {
+
+    @Rule
+    public TestProject project = new TestProject(ProjectType.DEEP_DEPENDENCIES);
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Test
+    public void allModulesAreReleasedInitially() {
+        assertThat(run(), equalTo(NextCommand.SUCCESS));
+
+        assertThat(lines(), contains("release deep-dependencies-aggregator 1.0 .",
+                                     "release parent-module 1.0 parent-module",
+                                     "release more-utils 10.0 more-utilities",
+                                     "release core-utils 2.0 the-core-utilities",
+                                     "release console-app 3.0 console-app"));
+    }
+
+    @Test
+    public void onlyChangedModulesAreReleased() throws Exception {
+        project.mvnReleaseComplete();
+        project.commitRandomFile("console-app").push();
+
+        assertThat(run(), equalTo(NextCommand.SUCCESS));
+
+        assertThat(lines(), hasItem("keep    core-utils 2.0 the-core-utilities"));
+        assertThat(lines(), hasItem("release console-app 3.1 console-app"));
+    }
+
+    @Test
+    public void modulesToBuildAreWritten() throws Exception {
+        project.mvnReleaseComplete();
+        project.commitRandomFile("the-core-utilities").push();
+
+        assertThat(run("--write"), equalTo(NextCommand.SUCCESS));
+
+        final File modulesToBuild = new File(project.localDir, Constants.MODULE_BUILD_FILE);
+        assertThat(FileUtils.readFileToString(modulesToBuild, StandardCharsets.UTF_8),
+                   equalTo("the-core-utilities,console-app\n"));
+    }
+
+    @Test
+    public void unknownOptionsAreRejected() {
+        assertThat(run("--unknown"), equalTo(NextCommand.USAGE_ERROR));
+    }
+
+    private int run(String... args) {
+        final String[] allArgs = Arrays.copyOf(args, args.length + 1);
+        allArgs[args.length] = "--directory=" + project.localDir.getPath();
+        return NextCommand.run(allArgs, new PrintStream(out, true), new PrintStream(err, true));
+    }
+
+    private List<String> lines() {
+        return Arrays.asList(new String(out.toByteArray(), StandardCharsets.UTF_8).split("\\R"));
+    }
+}
@@ -0,0 +1,85 @@
+package de.hilling.maven.release.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Uses {@code jdk.jfr} by reflection, like the plugin itself, so the tests compile on Java 8 and are skipped there.
+ */
+public class FlightRecorderEventTest {
+
+    private static final String MODULE_EVALUATED = "de.hilling.maven.release.ModuleEvaluated";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void requireFlightRecorder() {
+        try {
+            Class.forName("jdk.jfr.EventFactory");
+        } catch (ClassNotFoundException e) {
+            Assume.assumeNoException(e);
+        }
+    }
+
+    @Test
+    public void eventsAreRecorded() throws Exception {
+        final Object recording = startRecording();
+
+        FlightRecorderEvent.MODULE_EVALUATED.begin().commit("core-utils", true, "forced");
+
+        assertThat(recordedModules(recording), contains("core-utils true forced"));
+    }
+
+    @Test
+    public void eventsAreIgnoredWithoutRecording() throws Exception {
+        FlightRecorderEvent.MODULE_EVALUATED.begin().commit("ignored", false, "unchanged since release");
+
+        final Object recording = startRecording();
+
+        assertThat(recordedModules(recording), empty());
+    }
+
+    private static Object startRecording() throws Exception {
+        final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+        final Object recording = recordingClass.getConstructor().newInstance();
+        recordingClass.getMethod("enable", String.class).invoke(recording, MODULE_EVALUATED);
+        recordingClass.getMethod("start").invoke(recording);
+        return recording;
+    }
+
+    private List<String> recordedModules(Object recording) throws Exception {
+        final Class<?> recordingClass = recording.getClass();
+        recordingClass.getMethod("stop").invoke(recording);
+        final Path dump = new File(folder.getRoot(), "recording.jfr").toPath();
+        recordingClass.getMethod("dump", Path.class).invoke(recording, dump);
+        recordingClass.getMethod("close").invoke(recording);
+        final List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+                                             .getMethod("readAllEvents", Path.class).invoke(null, dump);
+        final List<String> modules = new ArrayList<>();
+        for (Object event : events) {
+            final Object type = event.getClass().getMethod("getEventType").invoke(event);
+            if (!MODULE_EVALUATED.equals(type.getClass().getMethod("getName").invoke(type))) {
+                continue;
+            }
+            modules.add(value(event, "artifactId") + " " + value(event, "released") + " " + value(event, "reason"));
+        }
+        return modules;
+    }
+
+    private static Object value(Object event, String field) throws Exception {
+        return event.getClass().getMethod("getValue", String.class).invoke(event, field);
+    }
+}
@@ -0,0 +1,79 @@
+package de.hilling.maven.release.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReleaseMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ReleaseMetrics metrics = new ReleaseMetrics("prepare");
+
+    @Test
+    public void phasesAreSummedUp() {
+        try (ReleaseMetrics.Phase ignored = metrics.phase("writePoms")) {
+            metrics.count(ReleaseMetrics.COMMITS_WALKED, 3);
+        }
+        try (ReleaseMetrics.Phase ignored = metrics.phase("writePoms")) {
+            metrics.count(ReleaseMetrics.COMMITS_WALKED, 4);
+        }
+
+        final String prometheus = metrics.toPrometheus();
+        assertThat(prometheus, containsString("smart_release_phase_seconds{goal=\"prepare\",phase=\"writePoms\"} "));
+        assertThat(prometheus, containsString("smart_release_phase_calls{goal=\"prepare\",phase=\"writePoms\"} 2\n"));
+        assertThat(prometheus, containsString("smart_release_commits_walked{goal=\"prepare\"} 7\n"));
+        assertThat(prometheus, containsString("# TYPE smart_release_commits_walked gauge\n"));
+    }
+
+    @Test
+    public void modulesAreRecorded() {
+        metrics.recordModule("core-\"utils\"", 2_500_000_000L, true);
+
+        assertThat(metrics.toPrometheus(),
+                   containsString("smart_release_module_seconds{goal=\"prepare\",module=\"core-\\\"utils\\\"\"} 2.5\n"));
+        assertThat(metrics.toJson(), containsString("\"released\": true"));
+    }
+
+    @Test
+    public void jsonAndPrometheusFilesAreWritten() throws Exception {
+        try (ReleaseMetrics.Phase ignored = metrics.phase("tag")) {
+            metrics.count(ReleaseMetrics.MODULES, 1);
+        }
+        final File directory = new File(folder.getRoot(), "metrics");
+
+        metrics.writeTo(directory);
+
+        assertThat(read(new File(directory, "smart-release-prepare.json")), containsString("\"tag\""));
+        assertThat(read(new File(directory, "smart-release-prepare.prom")),
+                   containsString("smart_release_modules{goal=\"prepare\"} 1\n"));
+        assertThat(directory.list((dir, name) -> name.endsWith(".tmp")), arrayWithSize(0));
+    }
+
+    @Test
+    public void disabledMetricsRecordNothing() throws Exception {
+        final ReleaseMetrics disabled = ReleaseMetrics.disabled();
+        try (ReleaseMetrics.Phase ignored = disabled.phase("tag")) {
+            disabled.count(ReleaseMetrics.MODULES, 1);
+        }
+
+        disabled.writeTo(folder.getRoot());
+
+        assertThat(folder.getRoot().list(), arrayWithSize(0));
+        assertThat(disabled.toPrometheus(), not(containsString("phase=\"tag\"")));
+    }
+
+    private static String read(File file) throws Exception {
+        return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,97 @@
+package de.hilling.maven.release.releaseinfo;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.hilling.maven.release.TestUtils;
+import de.hilling.maven.release.versioning.ImmutableModuleVersion;
+import de.hilling.maven.release.versioning.ImmutablePlannedModule;
+import de.hilling.maven.release.versioning.ImmutableQualifiedArtifact;
+import de.hilling.maven.release.versioning.ImmutableReleasePlan;
+import de.hilling.maven.release.versioning.ReleaseDateSingleton;
+import de.hilling.maven.release.versioning.ReleasePlan;
+
+public class ReleasePlanStorageTest {
+
+    private static final String HEAD   = "1111111111111111111111111111111111111111";
+    private static final String INPUTS = "2222222222222222222222222222222222222222";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File               gitDirectory;
+    private ReleasePlanStorage storage;
+    private ReleasePlan        plan;
+
+    @Before
+    public void setUp() throws Exception {
+        gitDirectory = folder.newFolder(".git");
+        storage = new ReleasePlanStorage(gitDirectory, new SystemStreamLog());
+        final ReleaseDateSingleton releaseDate = ReleaseDateSingleton.getInstance();
+        final ImmutableQualifiedArtifact artifact = ImmutableQualifiedArtifact.builder()
+                                                                              .groupId(TestUtils.TEST_GROUP_ID)
+                                                                              .artifactId("module-1").build();
+        final ImmutableModuleVersion moduleVersion = ImmutableModuleVersion.builder().artifact(artifact)
+                                                                           .version(TestUtils.fixVersion(1, 2))
+                                                                           .releaseTag(releaseDate.tagName())
+                                                                           .releaseDate(releaseDate.releaseDate())
+                                                                           .build();
+        plan = ImmutableReleasePlan.builder().headCommit(HEAD).inputsFingerprint(INPUTS).addModules(
+            ImmutablePlannedModule.builder().relativePathToModule("module-1").moduleVersion(moduleVersion)
+                                  .isToBeReleased(true).build()).build();
+    }
+
+    @Test
+    public void planIsLoadedForSameHeadAndInputs() {
+        storage.store(plan);
+        assertThat(storage.load(HEAD, INPUTS), equalTo(Optional.of(plan)));
+    }
+
+    @Test
+    public void planIsIgnoredForOtherHeadOrInputs() {
+        storage.store(plan);
+        assertThat(storage.load(INPUTS, INPUTS), equalTo(Optional.empty()));
+        assertThat(storage.load(HEAD, HEAD), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void deletedPlanIsNotLoaded() {
+        storage.store(plan);
+        storage.delete();
+        assertThat(storage.load(HEAD, INPUTS), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void incompletePlanIsIgnored() throws Exception {
+        writePlan("{\"headCommit\": \"" + HEAD + "\"}");
+        assertThat(storage.load(HEAD, INPUTS), equalTo(Optional.empty()));
+
+        writePlan("{\"headCommit\": \"" + HEAD + "\", \"inputsFingerprint\": \"" + INPUTS
+                  + "\", \"modules\": [{\"isToBeReleased\": true}]}");
+        assertThat(storage.load(HEAD, INPUTS), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void emptyPlanIsIgnored() throws Exception {
+        writePlan("");
+        assertThat(storage.load(HEAD, INPUTS), equalTo(Optional.empty()));
+    }
+
+    private void writePlan(String json) throws IOException {
+        final File planFile = new File(new File(gitDirectory, ReleasePlanStorage.PLAN_DIRECTORY),
+                                       ReleasePlanStorage.PLAN_FILE);
+        FileUtils.writeStringToFile(planFile, json, StandardCharsets.UTF_8);
+    }
+}
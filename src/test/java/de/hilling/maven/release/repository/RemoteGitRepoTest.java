@@ -0,0 +1,97 @@
+package de.hilling.maven.release.repository;
+
+import e2e.ProjectType;
+import scaffolding.GitMatchers;
+import scaffolding.GitServer;
+import scaffolding.TestProject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Talks to the origin over the git protocol with network latency, instead of reading it from the file system.
+ */
+public class RemoteGitRepoTest {
+
+    private static final long LATENCY_MILLIS = 100;
+
+    @Rule
+    public TestProject project = new TestProject(ProjectType.SINGLE);
+
+    private GitServer server;
+
+    @Before
+    public void serveOrigin() {
+        server = GitServer.serve(project.origin.getRepository()).latency(LATENCY_MILLIS);
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void remoteTagsAreListedOnce() throws GitAPIException {
+        tag(project.origin, "first-tag");
+        tag(project.origin, "second-tag");
+        LocalGitRepo repo = new LocalGitRepo(project.local, server.uri(), new SystemStreamLog());
+
+        assertThat(repo.getRemoteTag("first-tag").isPresent(), is(true));
+        assertThat(repo.getRemoteTag("second-tag").isPresent(), is(true));
+        assertThat(repo.getRemoteTag("missing-tag").isPresent(), is(false));
+        assertThat(server.connections(), equalTo(1));
+    }
+
+    @Test
+    public void listingRemoteTagsTakesAtLeastOneRoundTrip() throws GitAPIException {
+        tag(project.origin, "remote-tag");
+        LocalGitRepo repo = new LocalGitRepo(project.local, server.uri(), new SystemStreamLog());
+
+        final long start = System.currentTimeMillis();
+        assertThat(repo.getRemoteTag("remote-tag").isPresent(), is(true));
+        assertThat(System.currentTimeMillis() - start, greaterThanOrEqualTo(2 * LATENCY_MILLIS));
+        assertThat(server.bytesTransferred(), greaterThan(0L));
+    }
+
+    @Test
+    public void snapshotOfRemoteTagsAvoidsConnections() throws GitAPIException {
+        tag(project.origin, "remote-tag");
+        LocalGitRepo repo = new LocalGitRepo(project.local, server.uri(), new SystemStreamLog());
+        repo.setRemoteTagsTtl(60);
+        assertThat(repo.getRemoteTag("remote-tag").isPresent(), is(true));
+
+        LocalGitRepo nextRun = new LocalGitRepo(project.local, server.uri(), new SystemStreamLog());
+        nextRun.setRemoteTagsTtl(60);
+        assertThat(nextRun.getRemoteTag("remote-tag").isPresent(), is(true));
+        assertThat(server.connections(), equalTo(1));
+    }
+
+    @Test
+    public void tagsCanBePushedThroughTheServer() throws Exception {
+        server.bandwidth(64 * 1024);
+        project.commitRandomFile(".");
+        tag(project.local, "local-tag");
+
+        project.local.push().setRemote(server.uri()).add("master").setPushTags().call();
+
+        assertThat(GitMatchers.hasLocalTag(project.origin, "local-tag"), is(true));
+        assertThat(new LocalGitRepo(project.local, server.uri(), new SystemStreamLog()).getRemoteTag("local-tag")
+                                                                                     .isPresent(), is(true));
+        assertThat(server.connections(), equalTo(2));
+    }
+
+    private static void tag(Git repo, String name) throws GitAPIException {
+        repo.tag().setAnnotated(true).setName(name).setMessage("Some message").call();
+    }
+}
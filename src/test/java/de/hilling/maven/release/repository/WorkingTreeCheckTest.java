@@ -0,0 +1,65 @@
+package de.hilling.maven.release.repository;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import e2e.ProjectType;
+import scaffolding.TestProject;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class WorkingTreeCheckTest {
+
+    @Rule
+    public TestProject project = new TestProject(ProjectType.SINGLE);
+
+    @Test
+    public void cleanWorkingTreeHasNoDirtyPath() throws Exception {
+        assertThat(firstDirtyPath(), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void modifiedFilesAreFound() throws Exception {
+        write("pom.xml", "changed");
+        assertThat(firstDirtyPath(), equalTo(Optional.of("pom.xml")));
+    }
+
+    @Test
+    public void untrackedFilesAreFound() throws Exception {
+        write("new-dir/new-file.txt", "new");
+        assertThat(firstDirtyPath(), equalTo(Optional.of("new-dir/new-file.txt")));
+    }
+
+    @Test
+    public void ignoredFilesAreSkipped() throws Exception {
+        write(".git/info/exclude", "ignored/\n");
+        write("ignored/output.txt", "ignored");
+        assertThat(firstDirtyPath(), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void onlyGivenPathsAreChecked() throws Exception {
+        write("outside/new-file.txt", "new");
+        final Repository repository = project.local.getRepository();
+        assertThat(WorkingTreeCheck.firstDirtyPath(repository, singletonList("src")), equalTo(Optional.empty()));
+        assertThat(WorkingTreeCheck.firstDirtyPath(repository, singletonList("outside")),
+                   equalTo(Optional.of("outside/new-file.txt")));
+    }
+
+    private Optional<String> firstDirtyPath() throws Exception {
+        return WorkingTreeCheck.firstDirtyPath(project.local.getRepository(), emptyList());
+    }
+
+    private void write(String path, String content) throws Exception {
+        FileUtils.writeStringToFile(new File(project.localDir, path), content, StandardCharsets.UTF_8);
+    }
+}
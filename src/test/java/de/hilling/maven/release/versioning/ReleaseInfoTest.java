@@ -1,6 +1,7 @@
 package de.hilling.maven.release.versioning;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -8,6 +9,9 @@ import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
@@ -66,4 +70,78 @@ public class ReleaseInfoTest {
         final ReleaseInfo releaseInfo = gson.fromJson(TEST_RELEASE_INFO, ImmutableReleaseInfo.class);
         assertEquals(infoBuilder.addModules(modulerBuilder.build()).build(), releaseInfo);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void treeFingerprintIsOptional() {
+        final ImmutableReleaseInfo releaseInfo = infoBuilder.addModules(
+            modulerBuilder.treeFingerprint("4b825dc642cb6eb9a060e54bf8d69288fbee4904").build()).build();
+        final String json = gson.toJson(releaseInfo);
+        assertEquals(releaseInfo, gson.fromJson(json, ImmutableReleaseInfo.class));
+        assertEquals(Optional.empty(), gson.fromJson(TEST_RELEASE_INFO, ImmutableReleaseInfo.class).getModules().get(0)
+                                           .getTreeFingerprint());
+    }
+
+    @Test
+    public void releaseCommitIsOptional() {
+        final ImmutableReleaseInfo releaseInfo = infoBuilder.addModules(
+            modulerBuilder.releaseCommit("0123456789012345678901234567890123456789").build()).build();
+        final String json = gson.toJson(releaseInfo);
+        assertEquals(releaseInfo, gson.fromJson(json, ImmutableReleaseInfo.class));
+        assertEquals(Optional.empty(), gson.fromJson(TEST_RELEASE_INFO, ImmutableReleaseInfo.class).getModules().get(0)
+                                           .getReleaseCommit());
+    }
+
+    @Test
+    public void artifactIndexIsNotSerialized() {
+        final ImmutableReleaseInfo releaseInfo = infoBuilder.addModules(modulerBuilder.build()).build();
+        assertEquals(Optional.of(releaseInfo.getModules().get(0)),
+                     releaseInfo.versionForArtifact(releaseInfo.getModules().get(0).getArtifact()));
+        assertEquals(TEST_RELEASE_INFO, gson.toJson(releaseInfo));
+    }
+
+    @Test
+    public void fieldsOfOtherClassesWithTheNamesOfLazyFieldsAreSerialized() {
+        assertEquals("{\"artifactIndex\":\"kept\"}", GSON_FACTORY.createCompactGson().toJson(new NamedLikeLazyField()));
+    }
+
+    @Test
+    public void versionsAreFoundByArtifact() {
+        final ImmutableReleaseInfo releaseInfo = gson.fromJson(TEST_RELEASE_INFO, ImmutableReleaseInfo.class);
+        final ImmutableQualifiedArtifact artifact = ImmutableQualifiedArtifact.builder().groupId(
+            TestUtils.TEST_GROUP_ID).artifactId("module-1").build();
+        final ImmutableQualifiedArtifact unknown = ImmutableQualifiedArtifact.builder().groupId(
+            TestUtils.TEST_GROUP_ID).artifactId("module-2").build();
+        assertEquals(artifact, releaseInfo.versionForArtifact(artifact).get().getArtifact());
+        assertEquals(Optional.empty(), releaseInfo.versionForArtifact(unknown));
+    }
+
+    @Test
+    public void artifactIndexIsBuiltOnceForAllLookups() {
+        final List<ImmutableQualifiedArtifact> artifacts = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            final ImmutableQualifiedArtifact artifact = ImmutableQualifiedArtifact.builder().groupId(
+                TestUtils.TEST_GROUP_ID).artifactId("module-" + i).build();
+            artifacts.add(artifact);
+            infoBuilder.addModules(modulerBuilder.artifact(artifact).version(versionBuilder.minorVersion(i).build())
+                                                 .build());
+        }
+        final ImmutableReleaseInfo releaseInfo = infoBuilder.build();
+
+        assertSame(releaseInfo.artifactIndex(), releaseInfo.artifactIndex());
+        for (int i = 0; i < artifacts.size(); i++) {
+            assertEquals(i, releaseInfo.versionForArtifact(artifacts.get(i)).get().getVersion().getMinorVersion());
+        }
+    }
+
+    @Test
+    public void firstModuleOfAnArtifactIsFound() {
+        final ImmutableModuleVersion first = modulerBuilder.build();
+        final ImmutableModuleVersion second = modulerBuilder.version(versionBuilder.minorVersion(3).build()).build();
+        final ImmutableReleaseInfo releaseInfo = infoBuilder.addModules(first, second).build();
+        assertEquals(Optional.of(first), releaseInfo.versionForArtifact(first.getArtifact()));
+    }
+
+    private static final class NamedLikeLazyField {
+        private final String artifactIndex = "kept";
+    }
+}
@@ -9,8 +9,11 @@ import static scaffolding.CountMatcher.noneOf;
 import static scaffolding.CountMatcher.oneOf;
 import static scaffolding.GitMatchers.hasTag;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Rule;
 import org.junit.Test;
 
@@ -49,6 +52,34 @@ public class NextMojoTest {
             "[INFO] using 1.0 for deep-dependencies-aggregator as it has not been changed since that release.")));
     }
 
+    @Test
+    public void prepareReusesThePlanOfNext() throws Exception {
+        dependenciesProject.checkNoChanges = false;
+        dependenciesProject.mvnReleaseComplete();
+
+        dependenciesProject.commitRandomFile("console-app").push();
+        dependenciesProject.mvnReleaserNext();
+        List<String> output = dependenciesProject.mvnReleaseComplete();
+
+        assertThat(output, oneOf(containsString("using release plan computed by the next goal")));
+        assertThat(output, oneOf(containsString("[INFO] releasing console-app 3.1 as planned for")));
+        assertThat(output, oneOf(containsString("[INFO] keeping core-utils 2.0 as planned for")));
+    }
+
+    @Test
+    public void planOfAnOfflineNextIsNotReusedOnline() throws Exception {
+        dependenciesProject.checkNoChanges = false;
+        dependenciesProject.mvnReleaseComplete();
+
+        dependenciesProject.commitRandomFile("console-app").push();
+        dependenciesProject.mvnReleaserNext("-Doffline=true");
+        List<String> output = dependenciesProject.mvnReleaseComplete();
+
+        assertThat(output, noneOf(containsString("using release plan computed by the next goal")));
+        assertThat(output, oneOf(containsString("[INFO] using 3.1 for console-app as it has changed since the last "
+                                                + "release.")));
+    }
+
     @Test
     public void ifThereHaveBeenNoChangesThenReReleaseAllModules() throws Exception {
         List<String> firstBuildOutput = dependenciesProject.mvnReleaseComplete();
@@ -117,6 +148,24 @@ public class NextMojoTest {
                 "release.")));
     }
 
+    @Test
+    public void metricsAreWrittenIfRequested() throws Exception {
+        dependenciesProject.mvnReleaseComplete();
+        dependenciesProject.commitRandomFile("console-app").push();
+        final File metricsDirectory = new File(dependenciesProject.localDir, "target/metrics");
+
+        dependenciesProject.mvnReleaserNext("-DmetricsDirectory=" + metricsDirectory.getAbsolutePath());
+
+        final String prometheus = FileUtils.readFileToString(new File(metricsDirectory, "smart-release-next.prom"),
+                                                             StandardCharsets.UTF_8);
+        assertThat(prometheus, containsString("smart_release_phase_seconds{goal=\"next\",phase=\"changeDetection\"}"));
+        assertThat(prometheus, containsString("smart_release_module_seconds{goal=\"next\",module=\"console-app\"}"));
+        assertThat(prometheus, containsString("smart_release_commits_walked{goal=\"next\"}"));
+        final String json = FileUtils.readFileToString(new File(metricsDirectory, "smart-release-next.json"),
+                                                       StandardCharsets.UTF_8);
+        assertThat(json, containsString("\"verifyModules\""));
+    }
+
     private void assertTagDoesNotExist(String tagName) {
         assertThat(dependenciesProject.local, not(hasTag(tagName)));
         assertThat(dependenciesProject.origin, not(hasTag(tagName)));
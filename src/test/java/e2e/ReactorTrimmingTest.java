@@ -0,0 +1,121 @@
+package e2e;
+
+import scaffolding.TestProject;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static scaffolding.CountMatcher.oneOf;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+
+import de.hilling.maven.release.utils.Constants;
+
+public class ReactorTrimmingTest {
+
+    @Rule
+    public TestProject testProject = new TestProject(ProjectType.DEEP_DEPENDENCIES);
+
+    @Test
+    public void onlyChangedModulesAreBuilt() throws Exception {
+        enableExtension();
+        testProject.mvnReleaseComplete();
+        testProject.commitRandomFile("console-app").push();
+        testProject.mvn("install");
+
+        List<String> output = testProject.mvn("install", "-DtrimReactor=true");
+
+        assertThat(output, oneOf(containsString("Building 1 of 5 modules: console-app")));
+        assertThat(output, oneOf(containsString("BUILD SUCCESS")));
+    }
+
+    @Test
+    public void preparedModulesAreBuilt() throws Exception {
+        enableExtension();
+        testProject.mvnReleasePrepare();
+
+        List<String> output = testProject.mvn("install", "-DtrimReactor=true");
+
+        assertThat(output, oneOf(containsString("using the modules prepared for the release")));
+        assertThat(output, oneOf(containsString("Building 5 of 5 modules")));
+        assertThat(output, oneOf(containsString("BUILD SUCCESS")));
+    }
+
+    @Test
+    public void moduleListOfNextIsIgnored() throws Exception {
+        enableExtension();
+        testProject.mvnReleaseComplete();
+        testProject.commitRandomFile("console-app").push();
+        testProject.mvn("install");
+        writeRootFile(Constants.MODULE_BUILD_FILE, "core-utils");
+
+        List<String> output = testProject.mvn("install", "-DtrimReactor=true");
+
+        assertThat(output, oneOf(containsString("HEAD is not prepared for a release")));
+        assertThat(output, oneOf(containsString("Building 1 of 5 modules: console-app")));
+    }
+
+    @Test
+    public void moduleListLeftOverByPrepareIsIgnoredAfterNewCommits() throws Exception {
+        enableExtension();
+        testProject.mvnReleaseComplete();
+        writeRootFile(Constants.MODULE_BUILD_FILE, "core-utils");
+        writeRootFile(Constants.FILES_TO_REVERT, "");
+        testProject.commitRandomFile("console-app").push();
+        testProject.mvn("install");
+
+        List<String> output = testProject.mvn("install", "-DtrimReactor=true");
+
+        assertThat(output, oneOf(containsString("HEAD is not prepared for a release")));
+        assertThat(output, oneOf(containsString("Building 1 of 5 modules: console-app")));
+    }
+
+    @Test
+    public void reactorIsUnchangedWithoutProperty() throws Exception {
+        enableExtension();
+
+        List<String> output = testProject.mvn("validate");
+
+        assertThat(output, oneOf(containsString("Reactor Summary")));
+        assertThat(output, oneOf(containsString("BUILD SUCCESS")));
+    }
+
+    @Test
+    public void trimReactorIsIgnoredInThePluginConfiguration() throws Exception {
+        enableExtension("<configuration>\n<trimReactor>true</trimReactor>");
+        testProject.mvnReleaseComplete();
+        testProject.commitRandomFile("console-app").push();
+
+        List<String> output = testProject.mvn("validate");
+
+        assertThat(output, not(hasItem(containsString("Building 1 of 5 modules"))));
+        assertThat(output, oneOf(containsString("Reactor Summary")));
+        assertThat(output, oneOf(containsString("BUILD SUCCESS")));
+    }
+
+    private void writeRootFile(String name, String content) throws Exception {
+        FileUtils.writeStringToFile(new File(testProject.localDir, name), content, StandardCharsets.UTF_8);
+    }
+
+    private void enableExtension() throws Exception {
+        enableExtension("<configuration>");
+    }
+
+    private void enableExtension(String configuration) throws Exception {
+        final File pom = new File(testProject.localDir, "pom.xml");
+        final String content = FileUtils.readFileToString(pom, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(pom, content.replace("<artifactId>smart-release-plugin</artifactId>",
+                                                         "<artifactId>smart-release-plugin</artifactId>\n"
+                                                         + "<extensions>true</extensions>")
+                                                .replace("<configuration>", configuration), StandardCharsets.UTF_8);
+        testProject.local.add().addFilepattern("pom.xml").call();
+        testProject.local.commit().setMessage("enable extension").call();
+    }
+}
@@ -0,0 +1,128 @@
+package e2e;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+import scaffolding.AllocationRecording;
+import scaffolding.GeneratedProject;
+import scaffolding.MvnRunner;
+import scaffolding.TestProject;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import de.hilling.maven.release.versioning.GsonFactory;
+
+/**
+ * Wall time and allocation budgets of the goals on large generated projects, to catch super linear behaviour.
+ * <p>
+ * The wall time is the {@code total} phase of the goal's metrics, the allocations are those of the whole maven
+ * process including building the projects. These tests are slow and only run with {@code -DscaleTests=true}.
+ * </p>
+ */
+@RunWith(Parameterized.class)
+public class ScaleTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Rule
+    public TestProject project;
+
+    private final Budget next;
+    private final Budget prepare;
+
+    public ScaleTest(int modules, Budget next, Budget prepare) {
+        this.project = new TestProject(new GeneratedProject(modules).fanOut(3).fanIn(25).depth(2).commits(200));
+        this.next = next;
+        this.prepare = prepare;
+    }
+
+    @Parameterized.Parameters(name = "{0} modules")
+    public static Collection<Object[]> sizes() {
+        return Arrays.asList(new Object[][]{
+            {500, new Budget(8, 1024 * MB), new Budget(12, 1024 * MB)},
+            {2000, new Budget(20, 3072 * MB), new Budget(25, 3072 * MB)}});
+    }
+
+    @BeforeClass
+    public static void onlyIfRequested() {
+        Assume.assumeTrue("scale tests are enabled with -DscaleTests=true", Boolean.getBoolean("scaleTests"));
+    }
+
+    @Test
+    public void nextOnUnreleasedProject() {
+        measure("next", next, project::mvnReleaserNext);
+    }
+
+    @Test
+    public void prepareOnUnreleasedProject() {
+        measure("prepare", prepare, project::mvnReleasePrepare);
+    }
+
+    @Test
+    public void nextAfterRelease() throws Exception {
+        project.mvnReleasePrepare();
+        project.mvnCleanup();
+        project.push();
+        project.pushTags();
+        project.commitChangesToGeneratedModules(50).push();
+
+        measure("next", next, project::mvnReleaserNext);
+    }
+
+    private void measure(String goal, Budget budget, Function<String[], List<String>> run) {
+        final File metricsDirectory = new File(project.localDir, "target/metrics").getAbsoluteFile();
+        final AllocationRecording recording = new AllocationRecording(metricsDirectory.getParentFile(), goal);
+        final MvnRunner runner = new MvnRunner();
+        if (AllocationRecording.isAvailable()) {
+            runner.mavenOpts = recording.mavenOpts();
+        }
+        project.setMvnRunner(runner);
+
+        run.apply(new String[]{"-DmetricsDirectory=" + metricsDirectory.getPath()});
+
+        final double seconds = totalSeconds(new File(metricsDirectory, "smart-release-" + goal + ".json"));
+        System.out.println(goal + " on " + project.getArtifactId() + ": " + seconds + "s");
+        assertThat(seconds, lessThan((double) budget.seconds));
+        if (AllocationRecording.isAvailable()) {
+            final long allocated = recording.allocatedBytes();
+            System.out.println(goal + " on " + project.getArtifactId() + ": " + allocated / MB + "MB allocated");
+            assertThat(allocated, lessThan(budget.allocatedBytes));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double totalSeconds(File metrics) {
+        try {
+            final Map<String, Object> json = new GsonFactory().createGson().fromJson(
+                FileUtils.readFileToString(metrics, StandardCharsets.UTF_8), Map.class);
+            final Map<String, Object> phases = (Map<String, Object>) json.get("phases");
+            return (Double) ((Map<String, Object>) phases.get("total")).get("seconds");
+        } catch (Exception e) {
+            throw new RuntimeException("unable to read metrics " + metrics, e);
+        }
+    }
+
+    private static final class Budget {
+        private final long seconds;
+        private final long allocatedBytes;
+
+        private Budget(long seconds, long allocatedBytes) {
+            this.seconds = seconds;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+}
@@ -4,13 +4,17 @@ import scaffolding.MavenExecutionException;
 import scaffolding.TestProject;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static scaffolding.CountMatcher.oneOf;
 import static scaffolding.CountMatcher.twoOf;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
+import org.apache.commons.io.FileUtils;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.junit.Assert;
 import org.junit.Rule;
@@ -53,6 +57,30 @@ public class ValidationTest {
         }
     }
 
+    @Test
+    public void changesOutsideOfTheModulesAreIgnoredIfOnlyTheReactorIsChecked() throws IOException {
+        new File(independentVersionsProject.localDir, "untracked.txt").createNewFile();
+        new File(independentVersionsProject.localDir, "docs").mkdir();
+        new File(independentVersionsProject.localDir, "docs/notes.txt").createNewFile();
+
+        independentVersionsProject.mvnReleasePrepare("-DcheckReactorDirectoriesOnly=true");
+    }
+
+    @Test
+    public void failsIfTheRootPomIsChangedAndOnlyTheReactorIsChecked() throws IOException {
+        new File(independentVersionsProject.localDir, "untracked.txt").createNewFile();
+        FileUtils.write(new File(independentVersionsProject.localDir, "pom.xml"), "<!-- changed -->\n",
+                        StandardCharsets.UTF_8, true);
+        try {
+            independentVersionsProject.mvnReleasePrepare("-DcheckReactorDirectoriesOnly=true");
+            Assert.fail("Should not have worked as the root pom is changed");
+        } catch (MavenExecutionException mee) {
+            assertThat(mee.output, twoOf(containsString("Cannot release with uncommitted changes")));
+            assertThat(mee.output, oneOf(containsString(" * pom.xml")));
+            assertThat(mee.output, not(hasItem(containsString(" * untracked.txt"))));
+        }
+    }
+
     @Test
     public void ifIOErrorOccursWhileUpdatingPomsThenThisIsReported() throws IOException, InterruptedException {
         independentVersionsProject.checkClean = false;
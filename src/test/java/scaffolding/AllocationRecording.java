@@ -0,0 +1,98 @@
+package scaffolding;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Records the heap allocations of a forked maven process with flight recorder.
+ * <p>
+ * The process is started with {@link #mavenOpts()}, afterwards {@link #allocatedBytes()} sums up the sizes of all new
+ * TLABs and of all allocations outside of TLABs. The recording file is read by reflection, so the tests compile and
+ * run on Java 8, where no allocations are recorded.
+ * </p>
+ */
+public class AllocationRecording {
+
+    private static final String SETTINGS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                                           + "<configuration version=\"2.0\">\n"
+                                           + "  <event name=\"jdk.ObjectAllocationInNewTLAB\">\n"
+                                           + "    <setting name=\"enabled\">true</setting>\n"
+                                           + "    <setting name=\"stackTrace\">false</setting>\n"
+                                           + "  </event>\n"
+                                           + "  <event name=\"jdk.ObjectAllocationOutsideTLAB\">\n"
+                                           + "    <setting name=\"enabled\">true</setting>\n"
+                                           + "    <setting name=\"stackTrace\">false</setting>\n"
+                                           + "  </event>\n"
+                                           + "</configuration>\n";
+
+    private final File recording;
+    private final File settings;
+
+    /**
+     * @param directory directory for the recording and its settings.
+     * @param name      name of the recording.
+     */
+    public AllocationRecording(File directory, String name) {
+        this.recording = new File(directory, name + ".jfr").getAbsoluteFile();
+        this.settings = new File(directory, name + ".jfc").getAbsoluteFile();
+    }
+
+    /**
+     * @return true if the running JVM supports flight recorder.
+     */
+    public static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.consumer.RecordingFile");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return options for the maven JVM to record allocations until it exits.
+     */
+    public String mavenOpts() {
+        try {
+            FileUtils.writeStringToFile(settings, SETTINGS, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("unable to write flight recorder settings", e);
+        }
+        FileUtils.deleteQuietly(recording);
+        return "-XX:StartFlightRecording=dumponexit=true,filename=" + recording.getPath() + ",settings="
+               + settings.getPath();
+    }
+
+    /**
+     * @return bytes allocated by the recorded process.
+     */
+    public long allocatedBytes() {
+        try {
+            final List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+                                                 .getMethod("readAllEvents", Path.class)
+                                                 .invoke(null, recording.toPath());
+            long bytes = 0;
+            for (Object event : events) {
+                final Object type = event.getClass().getMethod("getEventType").invoke(event);
+                final Object name = type.getClass().getMethod("getName").invoke(type);
+                if ("jdk.ObjectAllocationInNewTLAB".equals(name)) {
+                    bytes += longValue(event, "tlabSize");
+                } else if ("jdk.ObjectAllocationOutsideTLAB".equals(name)) {
+                    bytes += longValue(event, "allocationSize");
+                }
+            }
+            return bytes;
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("unable to read recording " + recording, e);
+        }
+    }
+
+    private static long longValue(Object event, String field) throws ReflectiveOperationException {
+        return (Long) event.getClass().getMethod("getLong", String.class).invoke(event, field);
+    }
+}
@@ -0,0 +1,142 @@
+package scaffolding;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.io.filefilter.SuffixFileFilter;
+import org.codehaus.plexus.util.cli.CommandLineUtils;
+
+/**
+ * Runs maven inside the test JVM instead of forking a new process for each goal.
+ * <p>
+ * The maven installation in {@code M2_HOME} is loaded once into a class loader that is isolated from the test class
+ * path and shared by all runs, so maven's own classes stay warm. Each run gets a fresh {@code MavenCli} with its own
+ * plugin realms. Runs are serialized, maven only sees the standard properties of the JVM and all system properties
+ * are restored afterwards. System properties given with {@code -D} in the {@link #jvmOptions() JVM options} are
+ * passed on the command line, other JVM options cannot be applied in process and are ignored.
+ * </p>
+ */
+public class EmbeddedMvnRunner extends MvnRunner {
+
+    private static final Object       LOCK                  = new Object();
+    private static final List<String> JVM_PROPERTY_PREFIXES = Arrays.asList("java.", "jdk.", "sun.", "os.", "user.",
+                                                                            "file.", "line.", "path.", "native.");
+
+    private static ClassLoader mavenClassLoader;
+
+    @Override
+    public List<String> runMaven(File workingDir, String... arguments) {
+        final CollectingLogOutputStream logOutput = new CollectingLogOutputStream(logToStandardOut);
+        final PrintStream output = new PrintStream(logOutput, true);
+        final String mavenHome = systemMavenHome();
+        int exitCode;
+        synchronized (LOCK) {
+            final Thread thread = Thread.currentThread();
+            final ClassLoader contextClassLoader = thread.getContextClassLoader();
+            final Properties systemProperties = (Properties) System.getProperties().clone();
+            try {
+                final ClassLoader classLoader = mavenClassLoader(mavenHome);
+                thread.setContextClassLoader(classLoader);
+                System.setProperties(jvmProperties(systemProperties));
+                System.setProperty("maven.home", mavenHome);
+                System.setProperty("maven.conf", new File(mavenHome, "conf").getPath());
+                System.setProperty("maven.multiModuleProjectDirectory", workingDir.getAbsolutePath());
+                final Class<?> cliClass = classLoader.loadClass("org.apache.maven.cli.MavenCli");
+                final Object cli = cliClass.getConstructor().newInstance();
+                exitCode = (Integer) cliClass.getMethod("doMain", String[].class, String.class, PrintStream.class,
+                                                        PrintStream.class)
+                                             .invoke(cli, commandLine(arguments), workingDir.getAbsolutePath(),
+                                                     output, output);
+            } catch (InvocationTargetException e) {
+                e.getCause().printStackTrace(output);
+                exitCode = 1;
+            } catch (Exception e) {
+                throw new RuntimeException("unable to run maven from " + mavenHome, e);
+            } finally {
+                System.setProperties(systemProperties);
+                thread.setContextClassLoader(contextClassLoader);
+                output.close();
+            }
+        }
+        final List<String> lines = logOutput.getLines();
+        if (exitCode != 0) {
+            throw new MavenExecutionException(exitCode, lines);
+        }
+        return lines;
+    }
+
+    /**
+     * The properties of the test JVM, like the test filter of surefire, must not leak into maven.
+     */
+    private static Properties jvmProperties(Properties systemProperties) {
+        final Properties properties = new Properties();
+        for (String name : systemProperties.stringPropertyNames()) {
+            if (JVM_PROPERTY_PREFIXES.stream().anyMatch(name::startsWith)) {
+                properties.setProperty(name, systemProperties.getProperty(name));
+            }
+        }
+        return properties;
+    }
+
+    private String[] commandLine(String... arguments) throws Exception {
+        final List<String> commandLine = new ArrayList<>();
+        commandLine.add("--batch-mode");
+        if (globalSettings() != null) {
+            commandLine.add("--global-settings");
+            commandLine.add(globalSettings().getPath());
+        }
+        commandLine.addAll(systemPropertyOptions(jvmOptions()));
+        for (String argument : arguments) {
+            commandLine.addAll(Arrays.asList(CommandLineUtils.translateCommandline(argument)));
+        }
+        return commandLine.toArray(new String[commandLine.size()]);
+    }
+
+    private static List<String> systemPropertyOptions(String jvmOptions) throws Exception {
+        final List<String> options = new ArrayList<>();
+        if (jvmOptions != null) {
+            for (String option : CommandLineUtils.translateCommandline(jvmOptions)) {
+                if (option.startsWith("-D")) {
+                    options.add(option);
+                }
+            }
+        }
+        return options;
+    }
+
+    private static ClassLoader mavenClassLoader(String mavenHome) throws IOException {
+        if (mavenClassLoader == null) {
+            assertThat("Environment variable M2_HOME must be set", mavenHome != null);
+            final List<URL> urls = new ArrayList<>();
+            urls.add(new File(mavenHome, "conf/logging/").toURI().toURL());
+            addJars(urls, new File(mavenHome, "lib/ext"));
+            addJars(urls, new File(mavenHome, "lib"));
+            addJars(urls, new File(mavenHome, "boot"));
+            mavenClassLoader = new URLClassLoader(urls.toArray(new URL[urls.size()]),
+                                                  ClassLoader.getSystemClassLoader().getParent());
+        }
+        return mavenClassLoader;
+    }
+
+    private static void addJars(List<URL> urls, File directory) throws MalformedURLException {
+        final File[] jars = directory.listFiles((FileFilter) new SuffixFileFilter(".jar"));
+        if (jars != null) {
+            Arrays.sort(jars);
+            for (File jar : jars) {
+                urls.add(jar.toURI().toURL());
+            }
+        }
+    }
+}
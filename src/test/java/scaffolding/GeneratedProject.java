@@ -0,0 +1,197 @@
+package scaffolding;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Multi module project generated with a given shape, as an alternative to the projects in {@code test-projects}.
+ * <p>
+ * The first modules are libraries without dependencies, every other module depends on {@code fanOut} of them. There
+ * are as many libraries as needed to give each of them about {@code fanIn} dependents. Module directories are nested
+ * {@code depth} levels below the root. After the initial commit, the history gets {@code commits} commits, each
+ * changing one file in a random module.
+ * </p>
+ */
+public class GeneratedProject {
+
+    public static final String GROUP_ID         = "de.hilling.maven.release.testprojects.generated";
+    public static final String ROOT_ARTIFACT_ID = "generated-aggregator";
+
+    private static final String SNAPSHOT_VERSION = "1-SNAPSHOT";
+    private static final int    GROUP_FAN_OUT    = 8;
+
+    private final int modules;
+    private       int fanOut  = 2;
+    private       int fanIn   = 20;
+    private       int depth   = 1;
+    private       int commits = 0;
+
+    /**
+     * @param modules number of modules below the root aggregator.
+     */
+    public GeneratedProject(int modules) {
+        if (modules < 1) {
+            throw new IllegalArgumentException("at least one module needed");
+        }
+        this.modules = modules;
+    }
+
+    /**
+     * @param fanOut number of libraries each non library module depends on.
+     * @return this project.
+     */
+    public GeneratedProject fanOut(int fanOut) {
+        this.fanOut = fanOut;
+        return this;
+    }
+
+    /**
+     * @param fanIn approximate number of modules depending on each library.
+     * @return this project.
+     */
+    public GeneratedProject fanIn(int fanIn) {
+        this.fanIn = fanIn;
+        return this;
+    }
+
+    /**
+     * @param depth number of directories between the root and a module directory.
+     * @return this project.
+     */
+    public GeneratedProject depth(int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    /**
+     * @param commits number of commits after the initial one.
+     * @return this project.
+     */
+    public GeneratedProject commits(int commits) {
+        this.commits = commits;
+        return this;
+    }
+
+    public String getName() {
+        return "generated-" + modules + "-modules";
+    }
+
+    public int getModules() {
+        return modules;
+    }
+
+    public int getCommits() {
+        return commits;
+    }
+
+    public int getLibraries() {
+        final int libraries = (int) Math.ceil(modules * (double) fanOut / Math.max(1, fanIn));
+        return Math.max(Math.min(fanOut, modules), Math.min(libraries, modules));
+    }
+
+    /**
+     * @param module index of the module.
+     * @return path of the module directory relative to the root.
+     */
+    public String modulePath(int module) {
+        final StringBuilder path = new StringBuilder();
+        int group = module;
+        for (int level = 1; level < depth; level++) {
+            path.append("group-").append(group % GROUP_FAN_OUT).append('/');
+            group /= GROUP_FAN_OUT;
+        }
+        return path.append(artifactId(module)).toString();
+    }
+
+    public static String artifactId(int module) {
+        return "module-" + module;
+    }
+
+    @Override
+    public String toString() {
+        return modules + " modules, fan out " + fanOut + ", fan in " + fanIn + ", depth " + depth + ", " + commits
+               + " commits";
+    }
+
+    void writeTo(File directory) {
+        try {
+            write(directory, ".gitignore", "target\n");
+            write(directory, "pom.xml", rootPom());
+            for (int module = 0; module < modules; module++) {
+                write(directory, modulePath(module) + "/pom.xml", modulePom(module));
+                write(directory, modulePath(module) + "/src/main/resources/" + artifactId(module) + ".txt",
+                      "initial content\n");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("unable to generate project " + this, e);
+        }
+    }
+
+    private String rootPom() {
+        final StringBuilder moduleList = new StringBuilder();
+        for (int module = 0; module < modules; module++) {
+            moduleList.append("        <module>").append(modulePath(module)).append("</module>\n");
+        }
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+               + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+               + "    <modelVersion>4.0.0</modelVersion>\n"
+               + "\n"
+               + "    <groupId>" + GROUP_ID + "</groupId>\n"
+               + "    <artifactId>" + ROOT_ARTIFACT_ID + "</artifactId>\n"
+               + "    <version>" + SNAPSHOT_VERSION + "</version>\n"
+               + "    <packaging>pom</packaging>\n"
+               + "    <modules>\n" + moduleList + "    </modules>\n"
+               + "\n"
+               + "    <build>\n"
+               + "        <plugins>\n"
+               + "            <plugin>\n"
+               + "                <groupId>de.hilling.maven.release</groupId>\n"
+               + "                <artifactId>smart-release-plugin</artifactId>\n"
+               + "                <version>${current.plugin.version}</version>\n"
+               + "            </plugin>\n"
+               + "        </plugins>\n"
+               + "    </build>\n"
+               + "</project>\n";
+    }
+
+    private String modulePom(int module) {
+        final StringBuilder relativePath = new StringBuilder();
+        for (int level = 0; level < depth; level++) {
+            relativePath.append("../");
+        }
+        final StringBuilder dependencies = new StringBuilder();
+        final int libraries = getLibraries();
+        if (module >= libraries) {
+            dependencies.append("    <dependencies>\n");
+            for (int dependency = 0; dependency < Math.min(fanOut, libraries); dependency++) {
+                dependencies.append("        <dependency>\n")
+                            .append("            <groupId>").append(GROUP_ID).append("</groupId>\n")
+                            .append("            <artifactId>").append(artifactId((module + dependency) % libraries))
+                            .append("</artifactId>\n")
+                            .append("            <version>").append(SNAPSHOT_VERSION).append("</version>\n")
+                            .append("        </dependency>\n");
+            }
+            dependencies.append("    </dependencies>\n");
+        }
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+               + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+               + "    <modelVersion>4.0.0</modelVersion>\n"
+               + "    <parent>\n"
+               + "        <groupId>" + GROUP_ID + "</groupId>\n"
+               + "        <artifactId>" + ROOT_ARTIFACT_ID + "</artifactId>\n"
+               + "        <version>" + SNAPSHOT_VERSION + "</version>\n"
+               + "        <relativePath>" + relativePath + "pom.xml</relativePath>\n"
+               + "    </parent>\n"
+               + "\n"
+               + "    <artifactId>" + artifactId(module) + "</artifactId>\n"
+               + dependencies
+               + "</project>\n";
+    }
+
+    private static void write(File directory, String path, String content) throws IOException {
+        FileUtils.writeStringToFile(new File(directory, path), content, StandardCharsets.UTF_8);
+    }
+}
@@ -18,7 +18,6 @@ import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevTag;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.AbstractTreeIterator;
@@ -28,19 +27,14 @@ import org.hamcrest.Matcher;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
 
 import de.hilling.maven.release.AnnotatedTag;
-import de.hilling.maven.release.utils.Guard;
 import de.hilling.maven.release.releaseinfo.ReleaseInfoStorage;
-import de.hilling.maven.release.versioning.GsonFactory;
 import de.hilling.maven.release.versioning.ImmutableFixVersion;
 import de.hilling.maven.release.versioning.ImmutableModuleVersion;
 import de.hilling.maven.release.versioning.ImmutableQualifiedArtifact;
-import de.hilling.maven.release.versioning.ImmutableReleaseInfo;
 import de.hilling.maven.release.versioning.VersionMatcher;
 
 public class GitMatchers {
 
-    private static final GsonFactory GSON_FACTORY = new GsonFactory();
-
     public static Matcher<Git> hasTag(final String tag) {
         return new TypeSafeDiagnosingMatcher<Git>() {
             @Override
@@ -221,22 +215,7 @@ public class GitMatchers {
     }
 
     public static AnnotatedTag fromRef(Repository repository, Ref gitTag) throws IOException {
-        Guard.notNull("gitTag", gitTag);
-
-        RevWalk walk = new RevWalk(repository);
-        ImmutableReleaseInfo releaseInfo;
-        try {
-            ObjectId tagId = gitTag.getObjectId();
-            RevTag tag = walk.parseTag(tagId);
-            releaseInfo = GSON_FACTORY.createGson().fromJson(tag.getFullMessage(), ImmutableReleaseInfo.class);
-        } finally {
-            walk.dispose();
-        }
-        return new AnnotatedTag(stripRefPrefix(gitTag.getName()), releaseInfo);
-    }
-
-    private static String stripRefPrefix(String refName) {
-        return refName.substring("refs/tags/".length());
+        return AnnotatedTag.fromRef(repository, gitTag);
     }
 
     public static boolean hasLocalTag(Git repo, String tagToCheck) throws GitAPIException {
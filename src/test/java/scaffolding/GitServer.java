@@ -0,0 +1,215 @@
+package scaffolding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.Daemon;
+
+/**
+ * Serves a repository over the git protocol on localhost, like a remote repository on another machine.
+ * <p>
+ * A JGit {@link Daemon} serves the repository, clients connect to it through a proxy that delays every chunk of data
+ * by the configured latency and limits the throughput of each direction to the configured bandwidth. The proxy counts
+ * connections and transferred bytes, so tests can check how often and how much the plugin talks to the remote.
+ * </p>
+ */
+public class GitServer implements AutoCloseable {
+
+    private static final String REPOSITORY_NAME = "origin.git";
+    private static final int    BUFFER_SIZE     = 8192;
+    private static final byte[] END_OF_STREAM   = new byte[0];
+
+    private final Daemon          daemon;
+    private final ServerSocket    proxy;
+    private final ExecutorService threads     = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "git-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger   connections = new AtomicInteger();
+    private final AtomicLong      bytes       = new AtomicLong();
+    private volatile long latencyMillis  = 0;
+    private volatile long bytesPerSecond = 0;
+
+    private GitServer(Repository repository) throws IOException {
+        daemon = new Daemon(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        daemon.getService("git-receive-pack").setEnabled(true);
+        daemon.setRepositoryResolver((client, name) -> {
+            if (!name.equals(REPOSITORY_NAME) && !name.equals("/" + REPOSITORY_NAME)) {
+                throw new RepositoryNotFoundException(name);
+            }
+            repository.incrementOpen();
+            return repository;
+        });
+        daemon.start();
+        proxy = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        threads.execute(this::acceptConnections);
+    }
+
+    /**
+     * @param repository repository to serve, it stays open when the server is closed.
+     * @return running server without latency and bandwidth limit.
+     */
+    public static GitServer serve(Repository repository) {
+        try {
+            return new GitServer(repository);
+        } catch (IOException e) {
+            throw new RuntimeException("unable to serve " + repository.getDirectory(), e);
+        }
+    }
+
+    /**
+     * @param millis delay of each chunk of data in both directions, so a round trip takes twice as long.
+     * @return this server.
+     */
+    public GitServer latency(long millis) {
+        latencyMillis = millis;
+        return this;
+    }
+
+    /**
+     * @param bytesPerSecond throughput of each direction, 0 for unlimited.
+     * @return this server.
+     */
+    public GitServer bandwidth(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * @return url of the served repository.
+     */
+    public String uri() {
+        return "git://localhost:" + proxy.getLocalPort() + "/" + REPOSITORY_NAME;
+    }
+
+    /**
+     * @return number of connections opened by clients so far.
+     */
+    public int connections() {
+        return connections.get();
+    }
+
+    /**
+     * @return number of bytes transferred in both directions so far.
+     */
+    public long bytesTransferred() {
+        return bytes.get();
+    }
+
+    @Override
+    public void close() {
+        try {
+            proxy.close();
+        } catch (IOException e) {
+            throw new RuntimeException("unable to close proxy", e);
+        } finally {
+            threads.shutdownNow();
+            daemon.stop();
+        }
+    }
+
+    private void acceptConnections() {
+        while (!proxy.isClosed()) {
+            try {
+                final Socket client = proxy.accept();
+                final Socket server = new Socket(InetAddress.getLoopbackAddress(), daemon.getAddress().getPort());
+                connections.incrementAndGet();
+                final AtomicInteger openDirections = new AtomicInteger(2);
+                final Runnable closed = () -> {
+                    if (openDirections.decrementAndGet() == 0) {
+                        close(client);
+                        close(server);
+                    }
+                };
+                forward(client, server, closed);
+                forward(server, client, closed);
+            } catch (IOException e) {
+                if (!proxy.isClosed()) {
+                    throw new RuntimeException("unable to accept connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Data is read as soon as it arrives and written after the latency, so the delay does not depend on the size of
+     * the transfer. The bandwidth limit is applied on writing.
+     */
+    private void forward(Socket from, Socket to, Runnable closed) {
+        final BlockingQueue<Chunk> chunks = new LinkedBlockingQueue<>();
+        threads.execute(() -> {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            try {
+                final InputStream in = from.getInputStream();
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    chunks.put(new Chunk(Arrays.copyOf(buffer, read)));
+                }
+            } catch (IOException | InterruptedException e) {
+                // connection reset, the writer closes both sockets
+            } finally {
+                chunks.add(new Chunk(END_OF_STREAM));
+            }
+        });
+        threads.execute(() -> {
+            try {
+                final OutputStream out = to.getOutputStream();
+                Chunk chunk;
+                while ((chunk = chunks.take()).data != END_OF_STREAM) {
+                    sleepUntil(chunk.received + latencyMillis);
+                    out.write(chunk.data);
+                    out.flush();
+                    bytes.addAndGet(chunk.data.length);
+                    if (bytesPerSecond > 0) {
+                        TimeUnit.MILLISECONDS.sleep(chunk.data.length * 1000L / bytesPerSecond);
+                    }
+                }
+                to.shutdownOutput();
+                closed.run();
+            } catch (IOException | InterruptedException e) {
+                close(from);
+                close(to);
+            }
+        });
+    }
+
+    private static void sleepUntil(long millis) throws InterruptedException {
+        final long delay = millis - System.currentTimeMillis();
+        if (delay > 0) {
+            TimeUnit.MILLISECONDS.sleep(delay);
+        }
+    }
+
+    private static void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing left to release
+        }
+    }
+
+    private static final class Chunk {
+        private final byte[] data;
+        private final long   received = System.currentTimeMillis();
+
+        private Chunk(byte[] data) {
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package scaffolding;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.Predicate;
+
+/**
+ * Copies directory trees, sharing files that are never modified in place by hard links instead of copying them.
+ */
+public final class HardLinks {
+
+    private HardLinks() {
+    }
+
+    /**
+     * @param source    directory to copy.
+     * @param target    directory to create.
+     * @param immutable paths relative to {@code source} of files that can be linked.
+     * @param excluded  paths relative to {@code source} of files and directories to leave out.
+     */
+    public static void copy(Path source, Path target, Predicate<Path> immutable, Predicate<Path> excluded) {
+        try {
+            Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    final Path relative = source.relativize(dir);
+                    if (relative.getNameCount() > 0 && excluded.test(relative)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    Files.createDirectories(target.resolve(relative));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    final Path relative = source.relativize(file);
+                    if (!excluded.test(relative)) {
+                        final Path copy = target.resolve(relative);
+                        if (immutable.test(relative)) {
+                            link(file, copy);
+                        } else {
+                            Files.copy(file, copy, StandardCopyOption.COPY_ATTRIBUTES);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("unable to copy " + source + " to " + target, e);
+        }
+    }
+
+    /**
+     * Falls back to copying when the file system does not support hard links or the target is on another device.
+     */
+    private static void link(Path file, Path copy) throws IOException {
+        try {
+            Files.createLink(copy, file);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(file, copy, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+}
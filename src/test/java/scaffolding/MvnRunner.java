@@ -9,10 +9,25 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.DirectoryFileFilter;
 import org.apache.maven.shared.invoker.DefaultInvocationRequest;
 import org.apache.maven.shared.invoker.DefaultInvoker;
@@ -24,9 +39,18 @@ import org.apache.maven.shared.invoker.PrintStreamHandler;
 
 public class MvnRunner {
 
+    private static final String  FORK_NAME_PROPERTY      = "forkName";
+    private static final File    LOCAL_REPOSITORIES      = new File("target/local-repositories");
+    private static final String  TEMPLATE_MARKER         = "plugin-checksum";
+    private static final String  SHARED_REPOSITORY_ID    = "shared-local-repository";
+    private static final Pattern LOCAL_REPOSITORY_OPTION = Pattern.compile("-Dmaven\\.repo\\.local=(\\S+)");
+
     private static boolean haveInstalledPlugin = false;
+    private static File    isolatedLocalRepository;
+    private static File    isolatedGlobalSettings;
     private final File mvnHome;
     public boolean logToStandardOut = false;
+    public String  mavenOpts        = null;
 
     public MvnRunner() {
         this(null);
@@ -48,6 +72,12 @@ public class MvnRunner {
         return new MvnRunner(mvnHome);
     }
 
+    /**
+     * Install the plugin under test. When surefire passes the name of the fork, the plugin is installed into a
+     * template local repository that is reused as long as the plugin does not change. Each fork then gets its own copy
+     * of the template, so the tests of parallel forks do not see each other's artifacts. The local repository
+     * configured for maven is not copied, the forks read the artifacts they need from it as a remote repository.
+     */
     public static void installReleasePluginToLocalRepo() {
         if (haveInstalledPlugin) {
             return;
@@ -55,16 +85,128 @@ public class MvnRunner {
         long start = System.currentTimeMillis();
         System.out.print("Installing the plugin into the local repo .. ");
         assertThat("Environment variable M2_HOME must be set", systemMavenHome() != null);
+        final String forkName = System.getProperty(FORK_NAME_PROPERTY);
+        if (forkName == null) {
+            runPluginInstall(null);
+        } else {
+            final File template = new File(LOCAL_REPOSITORIES, "template");
+            installIntoTemplate(template);
+            final File repository = new File(LOCAL_REPOSITORIES, forkName).getAbsoluteFile();
+            deleteDirectory(repository);
+            HardLinks.copy(template.toPath(), repository.toPath(), MvnRunner::isArtifact,
+                           path -> path.equals(Paths.get(TEMPLATE_MARKER)));
+            isolatedLocalRepository = repository;
+        }
+        System.out.println(
+            " installed the plugin into the local repo in " + (System.currentTimeMillis() - start) + "ms");
+        haveInstalledPlugin = true;
+    }
+
+    /**
+     * The first fork that finds the template outdated rebuilds it, the others wait for it. The template is keyed on the
+     * checksum of the pom and the classes of the plugin, which make up the installed jar.
+     */
+    private static void installIntoTemplate(File template) {
+        final File marker = new File(template, TEMPLATE_MARKER);
+        try {
+            FileUtils.forceMkdir(LOCAL_REPOSITORIES);
+            try (FileChannel channel = FileChannel.open(new File(LOCAL_REPOSITORIES, "template.lock").toPath(),
+                                                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                isolatedGlobalSettings = writeGlobalSettings(new File(LOCAL_REPOSITORIES, "settings.xml"));
+                final String checksum = pluginChecksum();
+                if (marker.isFile() && checksum.equals(FileUtils.readFileToString(marker, StandardCharsets.UTF_8))) {
+                    return;
+                }
+                deleteDirectory(template);
+                runPluginInstall("-Dmaven.repo.local=" + template.getAbsolutePath());
+                FileUtils.writeStringToFile(marker, checksum, StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("unable to create local repository " + template, e);
+        }
+    }
+
+    /**
+     * Global settings that add the local repository configured for maven as a remote repository, so it is only read.
+     * The settings of the user still apply.
+     */
+    private static File writeGlobalSettings(File settings) throws IOException {
+        final String url = configuredLocalRepository().getAbsoluteFile().toURI().toString();
+        final String repository = "<id>" + SHARED_REPOSITORY_ID + "</id><url>" + url + "</url>"
+                                  + "<releases><checksumPolicy>ignore</checksumPolicy></releases>"
+                                  + "<snapshots><enabled>false</enabled></snapshots>";
+        FileUtils.writeStringToFile(settings, "<settings><profiles><profile><id>" + SHARED_REPOSITORY_ID + "</id>"
+                                              + "<repositories><repository>" + repository + "</repository>"
+                                              + "</repositories><pluginRepositories><pluginRepository>"
+                                              + repository + "</pluginRepository></pluginRepositories>"
+                                              + "</profile></profiles><activeProfiles><activeProfile>"
+                                              + SHARED_REPOSITORY_ID + "</activeProfile></activeProfiles></settings>",
+                                    StandardCharsets.UTF_8);
+        return settings.getAbsoluteFile();
+    }
+
+    private static String pluginChecksum() throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+        final List<Path> files = new ArrayList<>();
+        files.add(Paths.get("pom.xml"));
+        final Path classes = Paths.get("target", "classes");
+        if (Files.isDirectory(classes)) {
+            try (Stream<Path> walk = Files.walk(classes)) {
+                walk.filter(Files::isRegularFile).sorted().forEach(files::add);
+            }
+        }
+        for (Path file : files) {
+            digest.update(file.toString().getBytes(StandardCharsets.UTF_8));
+            digest.update(Files.readAllBytes(file));
+        }
+        return new BigInteger(1, digest.digest()).toString(16);
+    }
+
+    private static void runPluginInstall(String mavenOpts) {
         MvnRunner mvnRunner = new MvnRunner();
+        mvnRunner.mavenOpts = mavenOpts;
         try {
             mvnRunner.runMaven(new File("."), "-DskipTests=true -Pcoverage -e", "install");
         } catch (MavenExecutionException mee) {
             System.err.println("caught mee: " + mee.toString());
             throw new RuntimeException("run maven failed", mee);
         }
-        System.out.println(
-            " installed the plugin into the local repo in " + (System.currentTimeMillis() - start) + "ms");
-        haveInstalledPlugin = true;
+    }
+
+    /**
+     * Artifacts, poms and checksums are replaced but never changed in place, metadata and tracking files are updated
+     * and must be copied.
+     */
+    private static boolean isArtifact(Path path) {
+        final String name = path.getFileName().toString();
+        return !(name.endsWith(".xml") || name.endsWith(".properties") || name.endsWith(".lastUpdated")
+                 || name.equals("_remote.repositories"));
+    }
+
+    private static File configuredLocalRepository() {
+        final String environmentOpts = System.getenv("MAVEN_OPTS");
+        if (environmentOpts != null) {
+            final Matcher matcher = LOCAL_REPOSITORY_OPTION.matcher(environmentOpts);
+            if (matcher.find()) {
+                return new File(matcher.group(1));
+            }
+        }
+        return new File(System.getProperty("maven.repo.local",
+                                           System.getProperty("user.home") + "/.m2/repository"));
+    }
+
+    private static void deleteDirectory(File directory) {
+        try {
+            FileUtils.deleteDirectory(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("unable to delete " + directory, e);
+        }
     }
 
     public static String systemMavenHome() {
@@ -97,6 +239,8 @@ public class MvnRunner {
         props.setProperty("outputDirectory", temp.getCanonicalPath());
 
         request.setProperties(props);
+        request.setMavenOpts(new MvnRunner().jvmOptions());
+        request.setGlobalSettingsFile(isolatedGlobalSettings);
         Invoker invoker = new DefaultInvoker();
         CollectingLogOutputStream logOutput = new CollectingLogOutputStream(false);
         invoker.setOutputHandler(new PrintStreamHandler(new PrintStream(logOutput), true));
@@ -104,12 +248,42 @@ public class MvnRunner {
         return invoker.execute(request).getExitCode();
     }
 
+    /**
+     * @return global settings reading the local repository configured for maven as a remote, null if not isolated.
+     */
+    protected static File globalSettings() {
+        return isolatedGlobalSettings;
+    }
+
+    /**
+     * @return options of the maven JVM: {@code MAVEN_OPTS} from the environment, the isolated local repository and
+     * {@link #mavenOpts}, later options overriding earlier ones.
+     */
+    protected String jvmOptions() {
+        final List<String> options = new ArrayList<>();
+        final String environmentOpts = System.getenv("MAVEN_OPTS");
+        if (environmentOpts != null) {
+            options.add(environmentOpts);
+        }
+        if (isolatedLocalRepository != null) {
+            options.add("-Dmaven.repo.local=" + isolatedLocalRepository.getPath());
+        }
+        if (mavenOpts != null) {
+            options.add(mavenOpts);
+        }
+        return options.isEmpty()
+               ? null
+               : String.join(" ", options);
+    }
+
     public List<String> runMaven(File workingDir, String... arguments) {
         InvocationRequest request = new DefaultInvocationRequest();
         request.setGoals(asList(arguments));
         request.setBaseDirectory(workingDir);
         request.setDebug(false);
         request.setShowErrors(false);
+        request.setMavenOpts(jvmOptions());
+        request.setGlobalSettingsFile(isolatedGlobalSettings);
 
         Invoker invoker = new DefaultInvoker();
         invoker.setMavenHome(mvnHome);
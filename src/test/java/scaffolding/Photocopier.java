@@ -2,12 +2,39 @@ package scaffolding;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.URIish;
 
 public class Photocopier {
+
+    private static final Path OBJECTS      = Paths.get("objects");
+    private static final Path OBJECTS_INFO = OBJECTS.resolve("info");
+    private static final Path INDEX        = Paths.get("index");
+
     public static File copyTestProjectToTemporaryLocation(String projectName, String testProjectName)  {
+        File source = testProjectDirectory(projectName);
+        File target = folderForSampleProject(projectName, testProjectName);
+        try {
+            FileUtils.copyDirectory(source, target);
+        } catch (IOException e) {
+            throw new RuntimeException("unable to copy project", e);
+        }
+        return target;
+    }
+
+    public static File testProjectDirectory(String projectName) {
         File source = new File("test-projects", projectName);
         if (!source.isDirectory()) {
             source = new File(FilenameUtils.separatorsToSystem("../test-projects/" + projectName));
@@ -15,17 +42,50 @@ public class Photocopier {
         if (!source.isDirectory()) {
             throw new RuntimeException("Could not find module " + projectName);
         }
+        return source;
+    }
 
-        File target = folderForSampleProject(projectName, testProjectName);
-        try {
-            FileUtils.copyDirectory(source, target);
-        } catch (IOException e) {
-            throw new RuntimeException("unable to copy project", e);
-        }
+    public static File generateProjectToTemporaryLocation(GeneratedProject project, String testProjectName) {
+        File target = folderForSampleProject(project.getName(), testProjectName);
+        project.writeTo(target);
         return target;
     }
 
     public static File folderForSampleProject(String moduleName, String subfolder) {
         return new File(FilenameUtils.separatorsToSystem("target/samples/" + moduleName + "/" + subfolder));
     }
+
+    /**
+     * Clone a repository like {@code git clone --local}: the git objects are shared by hard links, the rest of the
+     * repository is copied and the working tree is checked out.
+     *
+     * @param source    working tree of the repository to clone.
+     * @param target    working tree of the clone.
+     * @param remoteUri uri of the {@code origin} remote of the clone, null to clone without a remote.
+     * @return the clone.
+     */
+    public static Git linkedClone(File source, File target, String remoteUri) throws GitAPIException {
+        HardLinks.copy(new File(source, Constants.DOT_GIT).toPath(), new File(target, Constants.DOT_GIT).toPath(),
+                       path -> path.startsWith(OBJECTS) && !path.startsWith(OBJECTS_INFO), INDEX::equals);
+        try {
+            final Git clone = Git.open(target);
+            if (remoteUri != null) {
+                final StoredConfig config = clone.getRepository().getConfig();
+                final RemoteConfig remote = new RemoteConfig(config, Constants.DEFAULT_REMOTE_NAME);
+                remote.addURI(new URIish(remoteUri));
+                remote.addFetchRefSpec(new RefSpec(
+                    "+" + Constants.R_HEADS + "*:" + Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/*"));
+                remote.update(config);
+                final String branch = clone.getRepository().getBranch();
+                config.setString("branch", branch, "remote", Constants.DEFAULT_REMOTE_NAME);
+                config.setString("branch", branch, "merge", Constants.R_HEADS + branch);
+                config.save();
+                clone.fetch().setRemote(Constants.DEFAULT_REMOTE_NAME).call();
+            }
+            clone.reset().setMode(ResetCommand.ResetType.HARD).call();
+            return clone;
+        } catch (IOException | URISyntaxException e) {
+            throw new RuntimeException("unable to clone " + source, e);
+        }
+    }
 }
@@ -11,13 +11,17 @@ import static scaffolding.GitMatchers.hasChangesOnlyInReleaseInfo;
 import static scaffolding.GitMatchers.hasCleanWorkingDirectory;
 import static scaffolding.GitMatchers.isInSynchWithOrigin;
 import static scaffolding.Photocopier.copyTestProjectToTemporaryLocation;
+import static scaffolding.Photocopier.generateProjectToTemporaryLocation;
 
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -25,7 +29,6 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.FileFilterUtils;
 import org.apache.maven.shared.invoker.MavenInvocationException;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.InitCommand;
 import org.eclipse.jgit.api.ResetCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.ObjectId;
@@ -40,9 +43,13 @@ public class TestProject extends ExternalResource {
 
     private static final MvnRunner DEFAULT_RUNNER;
     private static final String PLUGIN_VERSION_FOR_TESTS = "4-SNAPSHOT";
+    private static final String SCM_URL = "${scm.url}";
+    private static final Map<ProjectType, File> TEMPLATES = new EnumMap<>(ProjectType.class);
 
     static {
-        DEFAULT_RUNNER = new MvnRunner(null);
+        DEFAULT_RUNNER = Boolean.getBoolean("forkMaven")
+                         ? new MvnRunner(null)
+                         : new EmbeddedMvnRunner();
         MvnRunner.installReleasePluginToLocalRepo();
     }
 
@@ -57,6 +64,8 @@ public class TestProject extends ExternalResource {
     ObjectId localHeadAtStart;
     private AtomicInteger commitCounter = new AtomicInteger(1);
     private ProjectType type;
+    private GeneratedProject generated;
+    private Random random = new Random(4711);
     private MvnRunner   mvnRunner;
     private boolean purge = true;
     private RandomNameGenerator nameGenerator;
@@ -68,6 +77,13 @@ public class TestProject extends ExternalResource {
         nameGenerator = RandomNameGenerator.getInstance();
     }
 
+    public TestProject(GeneratedProject generated) {
+        this.generated = generated;
+        artifactId = generated.getName();
+        mvnRunner = DEFAULT_RUNNER;
+        nameGenerator = RandomNameGenerator.getInstance();
+    }
+
     /**
      * Create initialized and usable project.
      *
@@ -90,8 +106,8 @@ public class TestProject extends ExternalResource {
         if (pom.exists()) {
             try {
                 String xml = FileUtils.readFileToString(pom, "UTF-8");
-                if (xml.contains("${scm.url}")) {
-                    xml = xml.replace("${scm.url}", dirToGitScmReference(sourceDir));
+                if (xml.contains(SCM_URL)) {
+                    xml = xml.replace(SCM_URL, dirToGitScmReference(sourceDir));
                 }
                 xml = xml.replace("${current.plugin.version}", PLUGIN_VERSION_FOR_TESTS);
                 FileUtils.writeStringToFile(pom, xml, "UTF-8");
@@ -119,24 +135,20 @@ public class TestProject extends ExternalResource {
 
     @Override
     protected void before() {
-        final String submoduleName = type.getSubmoduleName();
+        final String submoduleName = generated == null
+                                     ? type.getSubmoduleName()
+                                     : generated.getName();
         final String subfolderName = nameGenerator.randomName();
-        final String subfolderOriginName = subfolderName + "/origin";
-        final String subfolderWorkingName = subfolderName + "/work";
-        originDir = copyTestProjectToTemporaryLocation(submoduleName, subfolderOriginName);
-        performPomSubstitution(originDir);
-
-        InitCommand initCommand = Git.init();
-        initCommand.setDirectory(originDir);
         try {
-            origin = initCommand.call();
-
-            origin.add().addFilepattern(".").call();
-            origin.commit().setMessage("Initial commit").call();
-
-            localDir = Photocopier.folderForSampleProject(submoduleName, subfolderWorkingName);
-            local = Git.cloneRepository().setBare(false).setDirectory(localDir).setURI(originDir.toURI().toString())
-                       .call();
+            if (sharesTemplate()) {
+                originDir = Photocopier.folderForSampleProject(submoduleName, subfolderName + "/origin");
+                origin = Photocopier.linkedClone(template(), originDir, null);
+            } else {
+                origin = createRepository(subfolderName + "/origin");
+                originDir = origin.getRepository().getWorkTree();
+            }
+            localDir = Photocopier.folderForSampleProject(submoduleName, subfolderName + "/work");
+            local = Photocopier.linkedClone(originDir, localDir, originDir.toURI().toString());
             originHeadAtStart = head(origin);
             localHeadAtStart = head(local);
             assertThat(originHeadAtStart, equalTo(localHeadAtStart));
@@ -150,6 +162,50 @@ public class TestProject extends ExternalResource {
         }
     }
 
+    /**
+     * Sample projects are committed once per test JVM into a template repository, that is cloned for each test.
+     * Generated projects are only used once, projects referring to their origin repository in the scm section
+     * cannot share a template.
+     */
+    private boolean sharesTemplate() {
+        if (generated != null) {
+            return false;
+        }
+        final File pom = new File(Photocopier.testProjectDirectory(type.getSubmoduleName()), "pom.xml");
+        try {
+            return !FileUtils.readFileToString(pom, StandardCharsets.UTF_8).contains(SCM_URL);
+        } catch (IOException e) {
+            throw new RuntimeException("unable to read " + pom, e);
+        }
+    }
+
+    private File template() throws GitAPIException {
+        synchronized (TEMPLATES) {
+            File template = TEMPLATES.get(type);
+            if (template == null) {
+                try (Git git = createRepository(nameGenerator.randomName() + "/template")) {
+                    template = git.getRepository().getWorkTree();
+                }
+                TEMPLATES.put(type, template);
+            }
+            return template;
+        }
+    }
+
+    private Git createRepository(String subfolder) throws GitAPIException {
+        final File directory = generated == null
+                               ? copyTestProjectToTemporaryLocation(type.getSubmoduleName(), subfolder)
+                               : generateProjectToTemporaryLocation(generated, subfolder);
+        performPomSubstitution(directory);
+        final Git git = Git.init().setDirectory(directory).call();
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("Initial commit").call();
+        if (generated != null) {
+            commitChangesToGeneratedModules(git, directory, generated.getCommits());
+        }
+        return git;
+    }
+
     @Override
     protected void after() {
         if (checkClean) {
@@ -252,6 +308,36 @@ public class TestProject extends ExternalResource {
         return this;
     }
 
+    /**
+     * Commit changes to randomly chosen modules of a generated project.
+     *
+     * @param commits number of commits, each changing one module.
+     * @return this project.
+     */
+    public TestProject commitChangesToGeneratedModules(int commits) throws GitAPIException {
+        commitChangesToGeneratedModules(local, localDir, commits);
+        return this;
+    }
+
+    private void commitChangesToGeneratedModules(Git git, File directory, int commits) throws GitAPIException {
+        if (generated == null) {
+            throw new IllegalStateException("not a generated project");
+        }
+        for (int i = 0; i < commits; i++) {
+            final int module = random.nextInt(generated.getModules());
+            final String path = generated.modulePath(module) + "/src/main/resources/" + GeneratedProject.artifactId(
+                module) + ".txt";
+            final int commit = commitCounter.getAndIncrement();
+            try {
+                FileUtils.write(new File(directory, path), "Commit " + commit + "\n", StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException("unable to change " + path, e);
+            }
+            git.add().addFilepattern(path).call();
+            git.commit().setMessage("Commit " + commit + ": changing " + GeneratedProject.artifactId(module)).call();
+        }
+    }
+
     public void push() {
         try {
             local.push().call();